@@ -0,0 +1,30 @@
+/**
+ * AllBenchmarks.java
+ * Runs every benchmark against the sample images, in one go, so runs can be compared over time
+ * 
+ * Slideshow Creator
+ */
+
+package benchmark;
+
+import java.io.File;
+
+public class AllBenchmarks
+{
+	/**
+	 * main - runs the image, transition, and timeline benchmarks. Run from the Slideshow-Creator folder with src,
+	 * res, bench, and lib/json-simple on the classpath. Add -Dbench.results=results.csv to keep the results
+	 * @param args unused
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		File[] samples = Bench.getSampleImages();
+		Bench.startHeadless(samples[0].getParent());
+		
+		ImageBenchmark.run(samples);
+		TransitionBenchmark.run(samples);
+		TimelineBenchmark.run(samples);
+		System.out.println("(sink " + Bench.getSink() + ")");
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Bench.java
+ * Small timing harness for the benchmarks. Warms up, times a batch of runs, and prints the results
+ * 
+ * Slideshow Creator
+ */
+
+package benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+import core.AppType;
+import core.SceneHandler;
+
+public final class Bench
+{
+	/** something to do once per run of a benchmark. Returns a value so the work can't be optimized away */
+	public interface Op {
+		Object run() throws Exception;
+	}
+	
+	/** collects results so the JIT can't tell they're unused */
+	private static int sink = 0;
+	
+	/** file every result is added to as a line of CSV so runs can be compared over time. Set with -Dbench.results */
+	private static final String resultsPath = System.getProperty("bench.results");
+	
+	/** when this run of the benchmarks started, written with every result */
+	private static final String runStamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+	
+	private Bench()
+	{
+	}
+	
+	/**
+	 * run - times an operation and prints milliseconds per run and runs per second
+	 * @param name name to print with the result
+	 * @param warmups number of untimed runs to let the JIT settle
+	 * @param runs number of timed runs
+	 * @param op the operation to time
+	 * @return average nanoseconds per run
+	 */
+	public static double run(String name, int warmups, int runs, Op op) throws Exception
+	{
+		for (int i = 0; i < warmups; i++)
+			consume(op.run());
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < runs; i++)
+			consume(op.run());
+		double nanosPerRun = (double) (System.nanoTime() - start) / runs;
+		
+		System.out.println(String.format("%-50s %10.3f ms/op %12.1f ops/s", name, nanosPerRun / 1e6, 1e9 / nanosPerRun));
+		record(name, nanosPerRun);
+		return nanosPerRun;
+	}
+	
+	/**
+	 * adds a result to the results file if there is one
+	 * @param name name of the benchmark
+	 * @param nanosPerRun average nanoseconds per run
+	 */
+	private static void record(String name, double nanosPerRun)
+	{
+		if (resultsPath == null)
+			return;
+		
+		File results = new File(resultsPath);
+		boolean isNew = !results.exists();
+		try (PrintWriter out = new PrintWriter(new FileWriter(results, true)))
+		{
+			if (isNew)
+				out.println("run,benchmark,ms/op");
+			out.println(String.format("%s,\"%s\",%.4f", runStamp, name, nanosPerRun / 1e6));
+		} catch (IOException e)
+		{
+			System.out.println("Could not write benchmark result to " + results.getAbsolutePath() + "\n" + e);
+		}
+	}
+	
+	/**
+	 * startHeadless - sets up the one scene handler and an empty timeline without opening a window, so benchmarks can
+	 * use code that expects the program to be running
+	 * @param directory directory the timeline works in
+	 */
+	public static void startHeadless(String directory)
+	{
+		if (SceneHandler.singleton == null)
+			new SceneHandler(AppType.RENDERER);
+		SceneHandler.singleton.setDirectory(directory);
+	}
+	
+	/**
+	 * getSampleImages - finds the images in the Sample Images folder. Set -Dbench.samples to use another folder
+	 * @return image files, sorted by name
+	 * @throws IOException if the folder has no images
+	 */
+	public static File[] getSampleImages() throws IOException
+	{
+		File dir = new File(System.getProperty("bench.samples", "../Sample Images"));
+		File[] images = dir.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File d, String name) {
+				String lower = name.toLowerCase();
+				return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png");
+			}
+		});
+		if (images == null || images.length == 0)
+			throw new IOException("No sample images in " + dir.getAbsolutePath() + ". Run from the Slideshow-Creator folder or set -Dbench.samples");
+		Arrays.sort(images);
+		return images;
+	}
+	
+	/**
+	 * keeps a result alive so the work that made it isn't skipped
+	 * @param result result of a run
+	 */
+	public static void consume(Object result)
+	{
+		if (result != null)
+			sink += System.identityHashCode(result);
+	}
+	
+	/**
+	 * @return value built from everything consumed. Print it at the end of a benchmark
+	 */
+	public static int getSink()
+	{
+		return sink;
+	}
+}
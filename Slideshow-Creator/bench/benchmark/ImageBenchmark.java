@@ -0,0 +1,111 @@
+/**
+ * ImageBenchmark.java
+ * Times loading, resizing, copying, and hover effects on the sample images
+ * 
+ * Slideshow Creator
+ */
+
+package benchmark;
+
+import java.awt.Image;
+import java.io.File;
+import java.lang.reflect.Method;
+
+import core.ImageEffects;
+import core.SceneHandler;
+import core.SliderColor;
+import core.Thumbnail;
+import core.TransitionType;
+
+public class ImageBenchmark
+{
+	/**
+	 * main - runs every image benchmark on every sample image
+	 * @param args unused
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		File[] samples = Bench.getSampleImages();
+		Bench.startHeadless(samples[0].getParent());
+		run(samples);
+		System.out.println("(sink " + Bench.getSink() + ")");
+	}
+	
+	/**
+	 * run - times each image operation on each sample
+	 * @param samples images to use
+	 */
+	public static void run(File[] samples) throws Exception
+	{
+		//private methods are called as they are so the benchmark measures exactly what the program runs
+		Method resizeImageThumb = Thumbnail.class.getDeclaredMethod("resizeImageThumb", Image.class);
+		resizeImageThumb.setAccessible(true);
+		
+		for (File sample : samples)
+		{
+			String path = sample.getAbsolutePath();
+			Image raw = Thumbnail.loadImage(path);
+			String size = raw.getWidth(null) + "x" + raw.getHeight(null);
+			String name = sample.getName() + " (" + size + ")";
+			Thumbnail thumb = new Thumbnail(path, false);
+			Image timelineImage = thumb.getImageTimeline();
+			
+			Bench.run("loadImage " + name, 1, 5, new Bench.Op() {
+				@Override
+				public Object run() {
+					return Thumbnail.loadImage(path);
+				}
+			});
+			Bench.run("resizeImageThumb " + name, 2, 10, new Bench.Op() {
+				@Override
+				public Object run() throws Exception {
+					return resizeImageThumb.invoke(thumb, raw);
+				}
+			});
+			Bench.run("toBufferedImage " + name, 2, 10, new Bench.Op() {
+				@Override
+				public Object run() {
+					return Thumbnail.toBufferedImage(raw);
+				}
+			});
+			Bench.run("cloneImage " + name, 2, 10, new Bench.Op() {
+				@Override
+				public Object run() {
+					return Thumbnail.cloneImage(raw);
+				}
+			});
+			Bench.run("ImageEffects.darken timeline image of " + sample.getName(), 5, 50, new Bench.Op() {
+				@Override
+				public Object run() {
+					return ImageEffects.darken(timelineImage, 30);
+				}
+			});
+			Bench.run("ImageEffects.darken " + name, 2, 10, new Bench.Op() {
+				@Override
+				public Object run() {
+					return ImageEffects.darken(raw, 30);
+				}
+			});
+			Bench.run("ImageEffects.tint " + name, 2, 10, new Bench.Op() {
+				@Override
+				public Object run() {
+					return ImageEffects.tint(raw, SliderColor.aqua);
+				}
+			});
+		}
+		
+		for (TransitionType type : TransitionType.values())
+		{
+			Image icon = SceneHandler.singleton.transitionImages.containsKey(type) ? SceneHandler.singleton.transitionImages.get(type).getImage() : null;
+			if (icon == null)
+				continue;
+			Bench.run("ImageEffects.fill " + type + " icon", 5, 100, new Bench.Op() {
+				@Override
+				public Object run() {
+					return ImageEffects.fill(icon, SliderColor.hover_beige);
+				}
+			});
+		}
+	}
+}
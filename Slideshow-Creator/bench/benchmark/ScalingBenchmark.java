@@ -0,0 +1,67 @@
+/**
+ * ScalingBenchmark.java
+ * Compares ImageScaler against the old getScaledInstance path for thumbnail and screen sized scaling
+ * 
+ * Slideshow Creator
+ */
+
+package benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import core.ImageScaler;
+import core.Thumbnail;
+
+public class ScalingBenchmark
+{
+	/**
+	 * main - scales a sample image and a synthetic 24 megapixel image to thumbnail and 1080p sizes both ways
+	 * @param args optional path to an image to use instead of the sample image
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		String samplePath = args.length > 0 ? args[0] : new File("../Sample Images/Starman04.jpg").getAbsolutePath();
+		Image loaded = Thumbnail.loadImage(samplePath);
+		if (loaded == null)
+		{
+			System.out.println("Could not load " + samplePath + ". Run from the Slideshow-Creator folder or pass an image path");
+			return;
+		}
+		BufferedImage sample = Thumbnail.toBufferedImage(loaded);
+		//stand in for a camera photo, which ImageIO decodes as 3 byte BGR
+		BufferedImage large = new BufferedImage(6000, 4000, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = large.createGraphics();
+		g.drawImage(sample, 0, 0, large.getWidth(), large.getHeight(), null);
+		g.dispose();
+		
+		System.out.println("Sample image " + sample.getWidth() + "x" + sample.getHeight() + " from " + samplePath);
+		compare("sample -> 290x170", sample, 290, 170, 20);
+		compare("sample -> 1920x1080", sample, 1920, 1080, 5);
+		compare("6000x4000 -> 290x170", large, 290, 170, 3);
+		compare("6000x4000 -> 1920x1080", large, 1920, 1080, 3);
+		System.out.println("(sink " + Bench.getSink() + ")");
+	}
+	
+	/**
+	 * times both scaling paths for one image and size and prints the speedup
+	 */
+	private static void compare(String name, BufferedImage image, int width, int height, int runs) throws Exception
+	{
+		double old = Bench.run("getScaledInstance " + name, 2, runs, new Bench.Op() {
+			@Override
+			public Object run() {
+				return Thumbnail.toBufferedImage(image.getScaledInstance(width, height, Image.SCALE_DEFAULT));
+			}
+		});
+		double scaler = Bench.run("ImageScaler " + name, 2, runs, new Bench.Op() {
+			@Override
+			public Object run() {
+				return ImageScaler.scale(image, width, height);
+			}
+		});
+		System.out.println(String.format("  speedup %.1fx", old / scaler));
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * TimelineBenchmark.java
+ * Times saving and loading slideshow files with 10, 1000, and 10000 slides
+ * 
+ * Slideshow Creator
+ */
+
+package benchmark;
+
+import java.io.File;
+
+import core.SceneHandler;
+import core.Thumbnail;
+import core.Timeline;
+import core.TimelineParser;
+
+public class TimelineBenchmark
+{
+	/** numbers of slides to time */
+	private static final int[] slideCounts = {10, 1000, 10000};
+	
+	/**
+	 * main - times export and import at each number of slides
+	 * @param args unused
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		run(Bench.getSampleImages());
+		System.out.println("(sink " + Bench.getSink() + ")");
+	}
+	
+	/**
+	 * run - fills a timeline with the sample images over and over, then times TimelineParser writing it out and
+	 * reading it back in
+	 * @param samples images to use as slides
+	 */
+	public static void run(File[] samples) throws Exception
+	{
+		File out = File.createTempFile("benchmark", "");
+		String exportPath = out.getAbsolutePath();
+		File exported = new File(exportPath + ".sl");
+		out.delete();
+		
+		for (int slides : slideCounts)
+		{
+			Bench.startHeadless(samples[0].getParent());
+			Timeline timeline = SceneHandler.singleton.getTimeline();
+			for (int i = 0; i < slides; i++)
+				timeline.addSlide(new Thumbnail(samples[i % samples.length].getAbsolutePath(), false));
+			
+			//fewer runs as it gets slower
+			int runs = Math.max(1, 1000 / slides);
+			Bench.run("TimelineParser.ExportTimeline " + slides + " slides", runs, runs, new Bench.Op() {
+				@Override
+				public Object run() throws Exception {
+					TimelineParser.ExportTimeline(exportPath);
+					return exported.length();
+				}
+			});
+			
+			//importing loads every slide's thumbnails, so big slideshows can run out of memory
+			try
+			{
+				Bench.run("TimelineParser.ImportTimeline " + slides + " slides", runs, runs, new Bench.Op() {
+					@Override
+					public Object run() throws Exception {
+						return TimelineParser.ImportTimeline(exported.getAbsolutePath());
+					}
+				});
+			} catch (Exception | OutOfMemoryError e)
+			{
+				System.out.println("TimelineParser.ImportTimeline " + slides + " slides failed, try a bigger -Xmx: " + e);
+			}
+		}
+		exported.delete();
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * TransitionBenchmark.java
+ * Times drawing one frame of each transition at 720p, 1080p, and 4K
+ * 
+ * Slideshow Creator
+ */
+
+package benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import core.ImageScaler;
+import core.SliderColor;
+import core.Thumbnail;
+import core.Transition;
+import core.TransitionType;
+import pkgImageTransitions.ColemanTransition;
+
+public class TransitionBenchmark
+{
+	/** sizes frames are drawn at: 720p, 1080p, and 4K */
+	private static final int[][] sizes = {{1280, 720}, {1920, 1080}, {3840, 2160}};
+	
+	/** frames between the start and end of the transition the runs step through */
+	private static final int stepCount = 60;
+	
+	/**
+	 * main - runs every transition at every size
+	 * @param args unused
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		run(Bench.getSampleImages());
+		System.out.println("(sink " + Bench.getSink() + ")");
+	}
+	
+	/**
+	 * run - times each transition's renderFrame at each size, stepping through the transition so every part of it
+	 * is measured. Each op is one frame, so ops/s is the most frames per second it could draw
+	 * @param samples images to transition between. The first two are used
+	 */
+	public static void run(File[] samples) throws Exception
+	{
+		Image rawA = Thumbnail.loadImage(samples[0].getAbsolutePath());
+		Image rawB = Thumbnail.loadImage(samples[samples.length > 1 ? 1 : 0].getAbsolutePath());
+		
+		for (int[] size : sizes)
+		{
+			int width = size[0];
+			int height = size[1];
+			BufferedImage slideA = letterbox(rawA, width, height);
+			BufferedImage slideB = letterbox(rawB, width, height);
+			BufferedImage frame = ImageScaler.createCompatibleImage(width, height, false);
+			
+			for (TransitionType type : TransitionType.values())
+			{
+				ColemanTransition transition = Transition.createColemanTransition(type);
+				int[] step = {0};
+				Bench.run(type + " renderFrame " + width + "x" + height, stepCount, stepCount * 2, new Bench.Op() {
+					@Override
+					public Object run() {
+						Graphics2D g = frame.createGraphics();
+						try
+						{
+							return transition.renderFrame((float) (step[0]++ % (stepCount + 1)) / stepCount, g, slideA, slideB, width, height);
+						} finally
+						{
+							g.dispose();
+						}
+					}
+				});
+			}
+		}
+	}
+	
+	/**
+	 * letterboxes the image onto a slide of the size given, like the player does
+	 */
+	private static BufferedImage letterbox(Image image, int width, int height)
+	{
+		int[] coords = Thumbnail.getLetterBoxCoords(image.getWidth(null), image.getHeight(null), width, height);
+		BufferedImage slide = ImageScaler.createCompatibleImage(width, height, false);
+		Graphics2D g = slide.createGraphics();
+		g.setColor(SliderColor.dark_gray);
+		g.fillRect(0, 0, width, height);
+		g.drawImage(ImageScaler.scale(image, coords[2], coords[3]), coords[0], coords[1], null);
+		g.dispose();
+		return slide;
+	}
+}
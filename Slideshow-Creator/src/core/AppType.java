@@ -20,7 +20,8 @@ package core;
  */
 public enum AppType {
 	CREATOR("Creator"), 
-	VIEWER("Viewer");
+	VIEWER("Viewer"),
+	RENDERER("Renderer");
 	
 	/**
 	 * title - name of app 
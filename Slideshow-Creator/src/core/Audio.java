@@ -17,16 +17,11 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaEventListener;
+import javax.sound.midi.MetaMessage;
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.Sequence;
 import javax.sound.midi.Sequencer;
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.DataLine;
-import javax.sound.sampled.LineEvent;
-import javax.sound.sampled.LineListener;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.swing.JFrame;
 
@@ -46,7 +41,7 @@ import javax.swing.JFrame;
 */
 //=============================================================================
 
-public class Audio extends NotifyingThread implements LineListener
+public class Audio extends NotifyingThread
 {
 	private String audioPath;
 	private String audioName;
@@ -82,20 +77,14 @@ public class Audio extends NotifyingThread implements LineListener
 	}
 	
 	/**
-	 *  get audio length from the audio file by checking the audio format and
-	 *  retrieving the frame size and rate to divide the audio file length 
-	 *  gives Audio length in seconds
+	 *  get audio length from the audio file's header, which gives the number 
+	 *  of frames for sampled audio or the sequence length for MIDI. Cached per 
+	 *  file so the same file isn't read twice
 	 */
 	private void setAudioLength()
 	{
-		AudioInputStream audioInputStream;
 		try {
-			audioInputStream = AudioSystem.getAudioInputStream(m_AudioFile);
-			AudioFormat format = audioInputStream.getFormat();
-		    long audioFileLength = m_AudioFile.length();
-		    int frameSize = format.getFrameSize();
-		    float frameRate = format.getFrameRate();
-		    audioLength = (audioFileLength / (frameSize * frameRate));
+			audioLength = AudioLengthCache.singleton.getLength(m_AudioFile);
 		} catch (UnsupportedAudioFileException e) {
 			//Alert the user
 			JFrame parent = SceneHandler.singleton.getMainFrame();
@@ -128,26 +117,41 @@ public class Audio extends NotifyingThread implements LineListener
 	
 	/** File to open and play */
 	private File m_AudioFile = null;
+	
+	/** Whether the file is MIDI. Java Sound can also read MIDI as sampled audio through its 
+	 *  synthesizer, so it's told apart by its header rather than by what opens it. That's only 
+	 *  used when there's no sequencer */
+	private final boolean m_bMidi;
 
-	/** Current sound object - copied from JavaSound.Juke */
-	private Object m_CurrentSound;
-
-	/** The system sequencer used to play the files. */
+	/** Current sound object - copied from JavaSound.Juke. An AudioStream for sampled audio */
+	private volatile Object m_CurrentSound;
+	
+	/** The system sequencer used to play MIDI files, only gotten once one is played */
 	// This was adapted from Juke.java in JavaSound demo
     private Sequencer sequencer;
 
 	/** Thread used by the audio file player */
 	private Thread m_PlayerThread;
 
-	// Some variables from Juke.java.  Not sure if they are really needed but
-	//   we define them for now just to adapt the code.
+	/** MIDI meta message type the sequencer sends when it reaches the end of the track */
+	private static final int endOfTrackType = 47;
+	
+	// Some variables from Juke.java. Guarded by this so the player thread can wait on them
     private boolean midiEOM = false;
-    private boolean audioEOM = false;
     private boolean isInterrupted = false;
 
     /** Flag if we are paused (for clips only???) */
     private boolean m_bPaused = false;	
     
+    /** Flag if the sound was loaded before the thread started, so the thread doesn't load it again */
+    private boolean m_bLoaded = false;
+    
+    /** Flag if sampled audio should start over at the end instead of ending */
+    private volatile boolean m_bLooping = false;
+    
+    /** Gain sampled audio plays at, 1 for as recorded */
+    private volatile float m_fGain = 1;
+    
     /** Boolean for if the clip is currently playing */
     private boolean isPlaying = false;
     
@@ -163,19 +167,8 @@ public class Audio extends NotifyingThread implements LineListener
 		this.audioPath = audioFile.getAbsolutePath();
 		this.audioName = audioFile.getName();
 		m_AudioFile = audioFile;
+		m_bMidi = isMidiFile(audioFile);
 		setAudioLength();
-
-		// Get the sequencer for this system and open it
-        try 
-        {
-            sequencer = MidiSystem.getSequencer();
-
-        }
-        catch (Exception ex) 
-        { 
-        	ex.printStackTrace(); 
-        	return; 
-        }
         
         // Create the thread for this player
 		m_PlayerThread = new Thread(this);
@@ -186,8 +179,9 @@ public class Audio extends NotifyingThread implements LineListener
 	public void Play() {
 		
 		if(!isPlaying) {
-			m_PlayerThread = new Thread(this);
-			m_PlayerThread.start();
+			//sampled audio is opened here so it can be paused or followed as soon as this returns
+			openStream();
+			startThread();
 		}
 		else {
 			//TODO: We can decide what to do about the user stopping a current clip 
@@ -196,12 +190,146 @@ public class Audio extends NotifyingThread implements LineListener
 		}
 	}
 	
+	//----------------------------------------------------------------
+	/** Get this file ready to play the moment another one ends, with no gap between them. 
+	 *  The file is opened and the thread started now, then it waits for the other file to 
+	 *  hand over its line. Sampled audio only 
+	 * @param previous audio file playing now
+	 * @return true if it's waiting on previous, false if it can't follow it and should be 
+	 * played once previous completes */
+	//----------------------------------------------------------------
+	public boolean PlayAfter(Audio previous)
+	{
+		Object previousSound = previous.m_CurrentSound;
+		//MIDI can't share the line
+		if (isPlaying || !(previousSound instanceof AudioStream) || !openStream())
+			return false;
+		
+		AudioStream stream = (AudioStream) m_CurrentSound;
+		stream.followPrevious();
+		isPlaying = true;
+		startThread();
+		((AudioStream) previousSound).setNext(stream);
+		return true;
+	}
+	
+	//----------------------------------------------------------------
+	/** Set whether sampled audio starts over at the end instead of ending. 
+	 * @param loop true to loop without a gap */
+	//----------------------------------------------------------------
+	public void setLooping(boolean loop)
+	{
+		m_bLooping = loop;
+		Object sound = m_CurrentSound;
+        if (sound instanceof AudioStream) 
+        {
+            ((AudioStream) sound).setLooping(loop);
+        }
+	}
+	
+	//---------------------------------------------------
+	// Open the file as sampled audio on this thread. 
+	// Returns false if it isn't, so the thread loads it instead
+	//---------------------------------------------------
+	private boolean openStream()
+	{
+		//MIDI plays through the sequencer when there is one
+		if (m_bMidi && getSequencer())
+			return false;
+		try 
+		{
+			m_CurrentSound = newStream();
+		} 
+		catch (Exception e) 
+		{
+			return false;
+		}
+		m_bLoaded = true;
+		return true;
+	}
+	
+	//---------------------------------------------------
+	// Open the file as sampled audio, ready to play. 
+	// MIDI rendered by the synthesizer has its release after 
+	// the end of the sequence, so it's cut to the length the 
+	// slideshow is timed by
+	//---------------------------------------------------
+	private AudioStream newStream() throws UnsupportedAudioFileException, IOException
+	{
+		AudioStream stream = new AudioStream(m_AudioFile);
+		stream.open();
+		if (m_bMidi)
+			stream.trimTo(audioLength);
+		stream.setLooping(m_bLooping);
+		stream.setGain(m_fGain);
+		return stream;
+	}
+	
+	//---------------------------------------------------
+	// Whether a file is MIDI, from its header
+	//---------------------------------------------------
+	private static boolean isMidiFile(File file)
+	{
+		try 
+		{
+			MidiSystem.getMidiFileFormat(file);
+			return true;
+		} 
+		catch (InvalidMidiDataException | IOException e) 
+		{
+			return false;
+		}
+	}
+	
+	//---------------------------------------------------
+	// Get the system sequencer the first time MIDI is played
+	//---------------------------------------------------
+	private boolean getSequencer()
+	{
+		if (sequencer != null)
+			return true;
+        try 
+        {
+            sequencer = MidiSystem.getSequencer();
+            //wakes the player thread as soon as a MIDI track ends
+            sequencer.addMetaEventListener(new MetaEventListener() {
+				@Override
+				public void meta(MetaMessage meta) {
+					if (meta.getType() == endOfTrackType)
+						endOfMidi();
+				}
+			});
+            return true;
+        }
+        catch (Exception ex) 
+        { 
+        	ex.printStackTrace(); 
+        	return false; 
+        }
+	}
+	
+	//---------------------------------------------------
+	// Start a new thread to play the file
+	//---------------------------------------------------
+	private void startThread()
+	{
+		//reset before the thread starts so stopping it right away still counts
+        synchronized (this)
+        {
+        	midiEOM = isInterrupted = false;
+        }
+		m_PlayerThread = new Thread(this);
+		m_PlayerThread.start();
+	}
+	
 	//---------------------------------------------------
 	// Run function required by the Runnable interface
 	//---------------------------------------------------
     public void doRun() throws InterruptedException
     {
-    	if(!loadAudioFile()) {
+    	if (m_bLoaded)
+    		m_bLoaded = false;
+    	else if(!loadAudioFile()) {
     		System.out.println("Could not load in audio file");
     		return;		// Oops! Couldn't load the file so terminate
     	}
@@ -209,8 +337,10 @@ public class Audio extends NotifyingThread implements LineListener
     	
         //If the thread was closed because it was interrupted, 
     	//we don't want it to notify the listeners
-        if(isInterrupted) {
-        	throw new InterruptedException();
+        synchronized (this) {
+        	if(isInterrupted) {
+        		throw new InterruptedException();
+        	}
         }
         
 	}
@@ -224,7 +354,16 @@ public class Audio extends NotifyingThread implements LineListener
        {
             try 
             {
-            	m_CurrentSound = AudioSystem.getAudioInputStream(m_AudioFile);
+            	if (m_bMidi && getSequencer())
+            	{
+            		//the sequencer plays MIDI so it ends on the end of track event, not after the synthesizer's release
+            		m_CurrentSound = new BufferedInputStream(new FileInputStream(m_AudioFile), 1024);
+            	}
+            	else
+            	{
+            		//sampled audio streams from the file as it plays rather than being read in whole
+            		m_CurrentSound = newStream();
+            	}
             } 
             catch(Exception e1) 
             {
@@ -244,58 +383,15 @@ public class Audio extends NotifyingThread implements LineListener
             }
        }
 
-        // user pressed stop or changed tabs while loading
-        if (sequencer == null) 
+        // only MIDI needs the sequencer, which holds a synthesizer and its line open while it's connected
+        if ((m_CurrentSound instanceof Sequence || m_CurrentSound instanceof BufferedInputStream) && !getSequencer()) 
         {
         	m_CurrentSound = null;
             return false;
         } 
 
-        if (m_CurrentSound instanceof AudioInputStream) 
-        {
-          try 
-           {
-                AudioInputStream stream = (AudioInputStream) m_CurrentSound;
-                AudioFormat format = stream.getFormat();
-
-                /**
-                 * we can't yet open the device for ALAW/ULAW playback,
-                 * convert ALAW/ULAW to PCM
-                 */
-                if ((format.getEncoding() == AudioFormat.Encoding.ULAW) ||
-                    (format.getEncoding() == AudioFormat.Encoding.ALAW)) 
-                {
-                    AudioFormat tmp = new AudioFormat(
-                                              AudioFormat.Encoding.PCM_SIGNED, 
-                                              format.getSampleRate(),
-                                              format.getSampleSizeInBits() * 2,
-                                              format.getChannels(),
-                                              format.getFrameSize() * 2,
-                                              format.getFrameRate(),
-                                              true);
-                    stream = AudioSystem.getAudioInputStream(tmp, stream);
-                    format = tmp;
-                }
-                DataLine.Info info = new DataLine.Info(
-                                          Clip.class, 
-                                          stream.getFormat(), 
-                                          ((int) stream.getFrameLength() *
-                                              format.getFrameSize()));
-
-                Clip clip = (Clip) AudioSystem.getLine(info);
-                clip.addLineListener(this);
-                clip.open(stream);
-                m_CurrentSound = clip;
-            } 
-           catch (Exception ex) 
-           { 
-        	   ex.printStackTrace(); 
-        	   m_CurrentSound = null;
-        	   return false;
-           }
-        } 
         // Note:  Tried .aif, .au, .mid, and .wav files and none of them are loaded as a Sequence or BufferedInputStream
-        else if (m_CurrentSound instanceof Sequence || m_CurrentSound instanceof BufferedInputStream) 
+        if (m_CurrentSound instanceof Sequence || m_CurrentSound instanceof BufferedInputStream) 
         {
         	System.out.println("In if (m_CurrentSound instanceof Sequence or BufferedInputStream).");
            try 
@@ -334,53 +430,51 @@ public class Audio extends NotifyingThread implements LineListener
 	//----------------------------------------------------------------------
 	private void playAudioFile()
 	{
-        midiEOM = audioEOM = isInterrupted = false;
         isPlaying = true;
+        //stopPlaying can clear the sound from another thread
+        Object sound = m_CurrentSound;
         if (m_CurrentSound instanceof Sequence || 
         		m_CurrentSound instanceof BufferedInputStream && m_PlayerThread != null) 
         {
         	System.out.println("playAudioFile starting the sequencer.");
             sequencer.start();
-            while (!midiEOM && m_PlayerThread != null && !isInterrupted) 
+            //sleeps until the end of track event or stopPlaying wakes it. Pausing doesn't end the track
+            synchronized (this)
             {
-                try 
-                { 
-                	m_PlayerThread.sleep(99); 
-                } 
-                catch (Exception e) 
-                {
-                	break;
-                }
+            	while (!midiEOM && !isInterrupted) 
+            	{
+            		try 
+            		{ 
+            			wait(); 
+            		} 
+            		catch (InterruptedException e) 
+            		{
+            			break;
+            		}
+            	}
             }
         	System.out.println("playAudioFile stopping the sequencer.");
-            sequencer.stop();
-            sequencer.close();
+        	//stopPlaying may have closed it already
+        	synchronized (sequencer)
+        	{
+        		if (sequencer.isOpen())
+        		{
+        			sequencer.stop();
+        			sequencer.close();
+        		}
+        	}
         } 
-        else if (m_CurrentSound instanceof Clip && m_PlayerThread != null) 
+        else if (sound instanceof AudioStream && m_PlayerThread != null) 
         {
-        	System.out.println("playAudioFile is creating a clip.");
-            Clip clip = (Clip) m_CurrentSound;
-            clip.start();
+        	//returns once the track ends or stopPlaying stops it
             try 
-            { 
-            	m_PlayerThread.sleep(99); 
+            {
+            	((AudioStream) sound).play();
             } 
             catch (Exception e) 
-            { }
-            while ((m_bPaused || clip.isActive()) && m_PlayerThread != null && !isInterrupted) 
             {
-                try 
-                { 
-                	m_PlayerThread.sleep(99); 
-                } 
-                catch (Exception e) 
-                {
-                	break;
-                }
+            	System.out.println("Audio not played! " + m_AudioFile.getAbsolutePath() + "\n" + e);
             }
-        	System.out.println("playAudioFile is stopping a clip.");
-            clip.stop();
-            clip.close();
         }
         //m_CurrentSound = null;
         
@@ -395,9 +489,10 @@ public class Audio extends NotifyingThread implements LineListener
 	public void pausePlaying()
 	{
 		m_bPaused = true;
-        if (m_CurrentSound instanceof Clip) 
+		Object sound = m_CurrentSound;
+        if (sound instanceof AudioStream) 
         {
-            ((Clip) m_CurrentSound).stop();
+            ((AudioStream) sound).pause();
         } 
         else if (m_CurrentSound instanceof Sequence || m_CurrentSound instanceof BufferedInputStream) 
         {
@@ -411,9 +506,10 @@ public class Audio extends NotifyingThread implements LineListener
 	public void resumePlaying()
 	{		
 		m_bPaused = false;
-        if (m_CurrentSound instanceof Clip) 
+		Object sound = m_CurrentSound;
+        if (sound instanceof AudioStream) 
         {
-            ((Clip) m_CurrentSound).start();
+            ((AudioStream) sound).resume();
         } 
         else if (m_CurrentSound instanceof Sequence || m_CurrentSound instanceof BufferedInputStream) 
         {
@@ -421,6 +517,62 @@ public class Audio extends NotifyingThread implements LineListener
         }
 	}
 	
+	//----------------------------------------------------------------
+	/** Jump to a time in the audio file, playing or paused. Sampled audio only 
+	 * @param seconds time from the start of the file */
+	//----------------------------------------------------------------
+	public void seekPlaying(float seconds)
+	{
+		Object sound = m_CurrentSound;
+        if (sound instanceof AudioStream) 
+        {
+            ((AudioStream) sound).seek(seconds);
+        }
+	}
+	
+	//----------------------------------------------------------------
+	/** Set how loud sampled audio plays, right away 
+	 * @param gain 1 for as recorded, 0 for silent */
+	//----------------------------------------------------------------
+	public void setVolume(float gain)
+	{
+		m_fGain = gain;
+		Object sound = m_CurrentSound;
+        if (sound instanceof AudioStream) 
+        {
+            ((AudioStream) sound).setGain(gain);
+        }
+	}
+	
+	//----------------------------------------------------------------
+	/** Fade sampled audio to a volume smoothly while it plays 
+	 * @param gain gain to end at
+	 * @param millis how long the fade takes */
+	//----------------------------------------------------------------
+	public void fadeVolume(float gain, int millis)
+	{
+		m_fGain = gain;
+		Object sound = m_CurrentSound;
+        if (sound instanceof AudioStream) 
+        {
+            ((AudioStream) sound).fadeTo(gain, millis);
+        }
+	}
+	
+	//----------------------------------------------------------------
+	/** Time being heard in the audio file, 0 if it isn't playing sampled audio 
+	 * @return seconds from the start of the file */
+	//----------------------------------------------------------------
+	public float getPlayingPosition()
+	{
+		Object sound = m_CurrentSound;
+        if (sound instanceof AudioStream) 
+        {
+            return ((AudioStream) sound).getPosition();
+        }
+        return 0;
+	}
+	
 	//----------------------------------------------------------------
 	/** Stop playing the audio file.  Called by the stop button. */
 	//----------------------------------------------------------------
@@ -429,35 +581,38 @@ public class Audio extends NotifyingThread implements LineListener
         if (m_CurrentSound instanceof Sequence || 
         		m_CurrentSound instanceof BufferedInputStream && m_PlayerThread != null) 
         {
-            sequencer.stop();
-            sequencer.close();
+        	synchronized (sequencer)
+        	{
+        		if (sequencer.isOpen())
+        		{
+        			sequencer.stop();
+        			sequencer.close();
+        		}
+        	}
         } 
-        else if (m_CurrentSound instanceof Clip && m_PlayerThread != null) 
+        else if (m_CurrentSound instanceof AudioStream && m_PlayerThread != null) 
         {
-            ((Clip) m_CurrentSound).stop();
-            ((Clip) m_CurrentSound).close();
+            ((AudioStream) m_CurrentSound).stop();
         }
         m_CurrentSound = null;
         isPlaying = false;
         
         //Need to tell the thread to explicitly stop, by setting some boolean that will
-        //break us out of the while loops in doRun
-        isInterrupted = true;
+        //break us out of the wait in playAudioFile
+        synchronized (this)
+        {
+        	isInterrupted = true;
+        	notifyAll();
+        }
     }
 	
 	//----------------------------------------------------------------
-	/** Define the function required for a linelistener interface */
-	// It appears that this function is only needed in the case of
-	//   playing a clip.  But it is here just to get thing running
+	/** Called by the sequencer's meta event thread when a MIDI track ends */
 	//----------------------------------------------------------------
-    public void update(LineEvent event) 
-    {
-    	System.out.println("update called.");
-        if (event.getType() == LineEvent.Type.STOP && !m_bPaused) 
-        { 
-            audioEOM = true;
-            //notifyListeners();
-        }
-    }
+	private synchronized void endOfMidi()
+	{
+		midiEOM = true;
+		notifyAll();
+	}
 	
 }
@@ -0,0 +1,143 @@
+/**
+ * AudioLengthCache.java
+ * Finds how long audio files are from their headers instead of decoding them, and remembers it for each file so the
+ * arrange scene can lay out long playlists without reading them again
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiFileFormat;
+import javax.sound.midi.MidiSystem;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+public class AudioLengthCache
+{
+	/** the cache every Audio gets its length from */
+	public static final AudioLengthCache singleton = new AudioLengthCache();
+	
+	/** lengths found so far by absolute path */
+	private final Map<String, Length> lengths = new HashMap<String, Length>();
+	
+	/**
+	 * getLength - gets how long a file plays, only reading its header the first time or after it changes
+	 * @param file sampled audio or MIDI file
+	 * @return length in seconds
+	 * @throws UnsupportedAudioFileException if it isn't audio Java Sound can read
+	 * @throws IOException if it can't be read
+	 */
+	public float getLength(File file) throws UnsupportedAudioFileException, IOException
+	{
+		String path = file.getAbsolutePath();
+		long modified = file.lastModified();
+		long size = file.length();
+		synchronized (this)
+		{
+			Length length = lengths.get(path);
+			if (length != null && length.modified == modified && length.size == size)
+				return length.seconds;
+		}
+		
+		float seconds = probe(file);
+		synchronized (this)
+		{
+			lengths.put(path, new Length(modified, size, seconds));
+		}
+		return seconds;
+	}
+	
+	/**
+	 * probe - reads how long a file plays from its header. Sampled audio uses the frame count in its file format, and
+	 * MIDI the length of its sequence
+	 * @param file sampled audio or MIDI file
+	 * @return length in seconds
+	 * @throws UnsupportedAudioFileException if it isn't audio Java Sound can read
+	 * @throws IOException if it can't be read
+	 */
+	public static float probe(File file) throws UnsupportedAudioFileException, IOException
+	{
+		if (!file.isFile())
+			throw new FileNotFoundException(file.getAbsolutePath());
+		
+		//MIDI goes first, since the synthesizer also reads it as sampled audio with a few seconds of release added on
+		try
+		{
+			return midiLength(file);
+		} catch (InvalidMidiDataException e)
+		{
+			//not MIDI
+		}
+		
+		AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(file);
+		AudioFormat format = fileFormat.getFormat();
+		if (fileFormat.getFrameLength() != AudioSystem.NOT_SPECIFIED && format.getFrameRate() > 0)
+			return fileFormat.getFrameLength() / format.getFrameRate();
+		Object duration = fileFormat.getProperty("duration");
+		if (duration instanceof Long)
+			return (Long) duration / 1000000f;
+		return countedLength(file);
+	}
+	
+	/**
+	 * length of a MIDI file, from its header if it says or from its sequence if not
+	 */
+	private static float midiLength(File file) throws InvalidMidiDataException, IOException
+	{
+		MidiFileFormat fileFormat = MidiSystem.getMidiFileFormat(file);
+		long micros = fileFormat.getMicrosecondLength();
+		if (micros == MidiFileFormat.UNKNOWN_LENGTH)
+			micros = MidiSystem.getSequence(file).getMicrosecondLength();
+		return micros / 1000000f;
+	}
+	
+	/**
+	 * length of sampled audio whose header doesn't give its frame count, found by reading through it. Skipping can't
+	 * be trusted to stop at the end of a file
+	 */
+	private static float countedLength(File file) throws UnsupportedAudioFileException, IOException
+	{
+		AudioInputStream stream = AudioSystem.getAudioInputStream(file);
+		try
+		{
+			AudioFormat format = stream.getFormat();
+			byte[] buffer = new byte[64 * 1024 - 64 * 1024 % format.getFrameSize()];
+			long bytes = 0;
+			int read;
+			while ((read = stream.read(buffer)) > 0)
+				bytes += read;
+			return bytes / format.getFrameSize() / format.getFrameRate();
+		} finally
+		{
+			stream.close();
+		}
+	}
+	
+	/**
+	 * a file's length along with what the file looked like when it was found
+	 */
+	private static class Length
+	{
+		private final long modified;
+		private final long size;
+		private final float seconds;
+		
+		private Length(long modified, long size, float seconds)
+		{
+			this.modified = modified;
+			this.size = size;
+			this.seconds = seconds;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/**
+ * AudioMixer.java
+ * Plays every sampled audio track through one line. Tracks write into their own MixerChannel, and a single thread pulls
+ * from all of them, adds them up with each one's gain, and writes the result to the line, so opening a track never
+ * needs another line from the system
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+public class AudioMixer
+{
+	/** the mixer every track plays through */
+	public static final AudioMixer singleton = new AudioMixer();
+	
+	/** format everything is mixed in. Tracks are converted to it when they're opened */
+	public static final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+	
+	/** how much mixed audio the line holds. Only adds latency, since pausing and seeking happen in the channels */
+	private static final int lineMillis = 100;
+	
+	/** how much audio is mixed at once */
+	private static final int chunkMillis = 10;
+	
+	/** how long the line stays open with nothing playing before it's given back to the system */
+	private static final int idleMillis = 3000;
+	
+	/** channels being mixed */
+	private final List<MixerChannel> channels = new ArrayList<MixerChannel>();
+	
+	/** line the mix is written to, only open while there are channels or shortly after */
+	private SourceDataLine line;
+	
+	/** thread mixing the channels into the line, null when it's not running */
+	private Thread mixThread;
+	
+	/**
+	 * AudioMixer - creates a mixer. Nothing is opened until a channel is
+	 */
+	private AudioMixer()
+	{
+	}
+	
+	/**
+	 * openChannel - opens a channel to write a track's audio to. Opens the line first if it isn't already
+	 * @param bufferMillis how much audio the channel holds ahead of the mix
+	 * @return the channel, stopped
+	 * @throws LineUnavailableException if the line can't be opened
+	 */
+	public synchronized MixerChannel openChannel(int bufferMillis) throws LineUnavailableException
+	{
+		if (line == null)
+		{
+			SourceDataLine newLine = AudioSystem.getSourceDataLine(format);
+			newLine.open(format, framesFor(lineMillis) * format.getFrameSize());
+			newLine.start();
+			line = newLine;
+		}
+		
+		MixerChannel channel = new MixerChannel(this, framesFor(bufferMillis) * format.getFrameSize());
+		channels.add(channel);
+		if (mixThread == null)
+		{
+			mixThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					mix();
+				}
+			}, "Audio mixer");
+			mixThread.setDaemon(true);
+			mixThread.start();
+		}
+		notifyAll();
+		return channel;
+	}
+	
+	/**
+	 * toMixerFormat - converts PCM to the format the mixer plays, changing the sample rate or channels if needed
+	 * @param pcm stream of PCM frames
+	 * @return stream in the mixer's format, or pcm itself if it already is
+	 * @throws IOException if Java Sound can't convert it
+	 */
+	public static AudioInputStream toMixerFormat(AudioInputStream pcm) throws IOException
+	{
+		if (pcm.getFormat().matches(format))
+			return pcm;
+		if (!AudioSystem.isConversionSupported(format, pcm.getFormat()))
+			throw new IOException("Can't convert " + pcm.getFormat() + " to " + format);
+		return AudioSystem.getAudioInputStream(format, pcm);
+	}
+	
+	/**
+	 * stops mixing a channel once it's closed
+	 */
+	synchronized void closeChannel(MixerChannel channel)
+	{
+		channels.remove(channel);
+	}
+	
+	/**
+	 * mixes the channels into the line until there have been none for a while. Writing to the line paces it
+	 */
+	private void mix()
+	{
+		int frames = framesFor(chunkMillis);
+		float[] mix = new float[frames * format.getChannels()];
+		byte[] out = new byte[frames * format.getFrameSize()];
+		MixerChannel[] mixing = new MixerChannel[0];
+		
+		while (true)
+		{
+			SourceDataLine mixLine;
+			synchronized (this)
+			{
+				long idleSince = System.currentTimeMillis();
+				while (channels.isEmpty())
+				{
+					long idle = System.currentTimeMillis() - idleSince;
+					if (idle >= idleMillis)
+					{
+						//let the system have the line back until something plays again
+						line.close();
+						line = null;
+						mixThread = null;
+						return;
+					}
+					try
+					{
+						wait(idleMillis - idle);
+					} catch (InterruptedException e)
+					{
+						//only closing the line ends the thread
+					}
+				}
+				mixing = channels.toArray(mixing);
+				mixLine = line;
+			}
+			
+			Arrays.fill(mix, 0);
+			//the array is reused, so the channels end at the first null
+			for (int i = 0; i < mixing.length && mixing[i] != null; i++)
+				mixing[i].mixInto(mix, frames);
+			
+			for (int i = 0; i < mix.length; i++)
+			{
+				int sample = Math.round(mix[i]);
+				if (sample > Short.MAX_VALUE)
+					sample = Short.MAX_VALUE;
+				else if (sample < Short.MIN_VALUE)
+					sample = Short.MIN_VALUE;
+				out[i * 2] = (byte) sample;
+				out[i * 2 + 1] = (byte) (sample >> 8);
+			}
+			mixLine.write(out, 0, out.length);
+		}
+	}
+	
+	/**
+	 * number of frames that play in the milliseconds given, at least one
+	 */
+	private static int framesFor(int millis)
+	{
+		return Math.max(1, (int) (format.getFrameRate() * millis / 1000));
+	}
+}
@@ -20,6 +20,9 @@ public class AudioPlayer implements ThreadOnCompleteListener
     /** Index of the currently playing audio clip */
     private int currentIndex = 0;
     
+    /** Index of the audio clip lined up to play right after the current one, or -1 if none */
+    private int nextIndex = -1;
+    
     /** Current length of the audio track list */
     private float playingTime = 0;
     
@@ -127,6 +130,7 @@ public class AudioPlayer implements ThreadOnCompleteListener
     {
         audioList.add(index, audio);
         audio.addListener(this);
+        playingTime += audio.getAudioLength();
     }
 
     /**
@@ -258,12 +262,12 @@ public class AudioPlayer implements ThreadOnCompleteListener
     /** Plays all the audio clips in the list sequentially
      * @author austinvickers
      */
-    public void playAudioClipsSequentially() {
+    public synchronized void playAudioClipsSequentially() {
     	//First reset the counter
     	currentIndex = 0;
     	
     	//Play the first clip
-    	playAudioClipAtIndex(currentIndex);
+    	startSequence();
     	
     	//NotifyOfThreadComplete will get notified when its time to play the next clip
     }
@@ -275,7 +279,7 @@ public class AudioPlayer implements ThreadOnCompleteListener
      *  @param shouldLoop
      *  @author austinvickers
      */
-    public void playAudioClipsSequentially(boolean shouldLoop) {
+    public synchronized void playAudioClipsSequentially(boolean shouldLoop) {
     	//First reset the counter
     	currentIndex = 0;
     	
@@ -283,28 +287,74 @@ public class AudioPlayer implements ThreadOnCompleteListener
     	this.shouldLoop = shouldLoop;
     	
     	//Play the first clip
-    	playAudioClipAtIndex(currentIndex);
+    	startSequence();
     	
     	//NotifyOfThreadComplete will get notified when its time to play the next clip
     }
     
+    /**
+     * Plays the clip at the current index and lines up the one after it. A single clip 
+     * that loops just starts over on its own
+     */
+    private void startSequence() {
+    	nextIndex = -1;
+    	if(getAudio(currentIndex) == null) {
+    		return;
+    	}
+    	getAudio(currentIndex).setLooping(shouldLoop && audioList.size() == 1);
+    	playAudioClipAtIndex(currentIndex);
+    	lineUpNext();
+    }
+    
+    /**
+     * Opens the clip after the current one while the current one is still playing, so it 
+     * takes over the moment the current one ends. Wraps around to the first clip when looping
+     */
+    private void lineUpNext() {
+    	nextIndex = -1;
+    	int index = currentIndex + 1;
+    	if(index >= audioList.size()) {
+    		if(!shouldLoop) {
+    			return;
+    		}
+    		index = 0;
+    	}
+    	if(index == currentIndex) {
+    		return;
+    	}
+    	
+    	Audio next = audioList.get(index);
+    	next.setLooping(false);
+    	if(next.PlayAfter(audioList.get(currentIndex))) {
+    		nextIndex = index;
+    	}
+    	//Otherwise it's played once the current one completes
+    }
+    
     /**
      * Pauses the audio at the current index - the one that should be playing
      * 
      * @author austinvickers
      */
-    public void pauseCurrentAudio() {
+    public synchronized void pauseCurrentAudio() {
     	
     	if(currentIndex >= 0 && currentIndex < audioList.size() && audioList.get(currentIndex) != null) {
     		audioList.get(currentIndex).pausePlaying();
     	}
+    	//The next clip could take over before the current one is notified, so it stays paused too
+    	if(nextIndex >= 0 && nextIndex < audioList.size()) {
+    		audioList.get(nextIndex).pausePlaying();
+    	}
     }
     
-    public void resumeCurrentAudio() {
+    public synchronized void resumeCurrentAudio() {
     	 
     	if(currentIndex >= 0 && currentIndex < audioList.size() && audioList.get(currentIndex) != null) {
     		audioList.get(currentIndex).resumePlaying();
     	}
+    	if(nextIndex >= 0 && nextIndex < audioList.size()) {
+    		audioList.get(nextIndex).resumePlaying();
+    	}
     }
     
     /**
@@ -312,7 +362,8 @@ public class AudioPlayer implements ThreadOnCompleteListener
      *  
      *  @author austinvickers
      */
-    public void FullStop() {
+    public synchronized void FullStop() {
+    	nextIndex = -1;
     	for(Audio a : audioList) {
     		if(a != null)
     			a.stopPlaying();
@@ -323,7 +374,7 @@ public class AudioPlayer implements ThreadOnCompleteListener
      *  @author austinvickers
      */
 	@Override
-	public void notifyOfThreadComplete(NotifyingThread thread) {
+	public synchronized void notifyOfThreadComplete(NotifyingThread thread) {
 		
 		if(!shouldNotify) {
 			return;
@@ -331,14 +382,19 @@ public class AudioPlayer implements ThreadOnCompleteListener
 		
 		System.out.println("Audio player was notified");
 		
-		if(currentIndex + 1 < audioList.size()) {
+		//The next clip already took over, so just line up the one after it
+		if(nextIndex >= 0) {
+			currentIndex = nextIndex;
+			lineUpNext();
+		}
+		else if(currentIndex + 1 < audioList.size()) {
 			currentIndex++;
-			playAudioClipAtIndex(currentIndex);
+			startSequence();
 		}
 		else {
 			if(shouldLoop) {
 				currentIndex = 0;
-				playAudioClipAtIndex(currentIndex);
+				startSequence();
 			}
 		}
 		
@@ -0,0 +1,527 @@
+/**
+ * AudioStream.java
+ * Plays a sampled audio file by reading it a little at a time into a channel of the AudioMixer, so memory stays the
+ * same no matter how long the track is. Can be paused, resumed, seeked, and faded from other threads while it plays. A
+ * stream can be lined up to follow another one, taking over its channel so the two play back to back with no gap
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+public class AudioStream
+{
+	/** how much audio the channel holds ahead of the mix. Pausing and seeking act on the channel, so they still respond right away */
+	private static final int bufferMillis = 500;
+	
+	/** how much audio is read and written at once */
+	private static final int chunkMillis = 50;
+	
+	/** file being played */
+	private final File file;
+	
+	/** decoded PCM being read from, reopened to seek backwards */
+	private AudioInputStream stream;
+	
+	/** format of the PCM, the mixer's */
+	private AudioFormat format;
+	
+	/** length of the track in the mixer's frames, or NOT_SPECIFIED if the file doesn't say */
+	private long frameLength = AudioSystem.NOT_SPECIFIED;
+	
+	/** channel the PCM is written to, only open while playing */
+	private MixerChannel channel;
+	
+	/** frame of the track the stream reads next */
+	private long streamFrame = 0;
+	
+	/** frame of the track at the channel's frame 0, so the channel's position can be turned into the track's */
+	private long channelFrameOffset = 0;
+	
+	/** frames written to the channel so far, counting any written by the stream that handed it over */
+	private long channelFrames = 0;
+	
+	/** frame the track ends at when it's cut short of the file's end, -1 if it plays to the end */
+	private long endFrame = -1;
+	
+	/** frame to jump to before the next read, -1 if none */
+	private long seekFrame = -1;
+	
+	/** stream lined up to play after this one, or null */
+	private AudioStream next;
+	
+	/** channel handed over by the stream before this one, used instead of opening one */
+	private MixerChannel givenChannel;
+	
+	private boolean paused = false;
+	private boolean stopped = false;
+	
+	/** whether play waits for the stream before this one to end before starting */
+	private boolean waitingForPrevious = false;
+	
+	/** whether play is over, so a stream lined up after now has to start on its own */
+	private boolean finished = false;
+	
+	/** whether to go back to the start at the end instead of ending */
+	private boolean looping = false;
+	
+	/** gain the track is mixed at, 1 for as recorded */
+	private float gain = 1;
+	
+	/**
+	 * AudioStream - creates a stream for a file. Nothing is read until open
+	 * @param file WAV, AIFF, or AU file to play
+	 */
+	public AudioStream(File file)
+	{
+		this.file = file;
+	}
+	
+	/**
+	 * open - opens the file and gets its PCM ready to play, converted to the mixer's format. Fails if Java Sound can't
+	 * read it as sampled audio
+	 * @throws UnsupportedAudioFileException if it isn't sampled audio Java Sound can decode
+	 * @throws IOException if it can't be read or converted
+	 */
+	public synchronized void open() throws UnsupportedAudioFileException, IOException
+	{
+		openAt(0);
+	}
+	
+	/**
+	 * trimTo - ends the track at a time before the file does, like the end of a MIDI sequence that the synthesizer
+	 * renders with a release after it. Its length and seeking are cut to match
+	 * @param seconds time from the start the track ends at
+	 */
+	public synchronized void trimTo(float seconds)
+	{
+		endFrame = Math.max(0, (long) (seconds * AudioMixer.format.getFrameRate()));
+		if (frameLength == AudioSystem.NOT_SPECIFIED || frameLength > endFrame)
+			frameLength = endFrame;
+	}
+	
+	/**
+	 * play - plays the stream from where it is to the end, or until stopped. Blocks until then, so run it on its own
+	 * thread. Only reuses one small buffer, however long the track is. If this stream is following another, waits for
+	 * that one to end first and keeps writing to its channel so there's no gap
+	 * @throws LineUnavailableException if no channel can play the format
+	 * @throws IOException if reading the file fails
+	 */
+	public void play() throws LineUnavailableException, IOException
+	{
+		MixerChannel playChannel;
+		byte[] buffer;
+		synchronized (this)
+		{
+			while (waitingForPrevious && !stopped)
+			{
+				try
+				{
+					wait();
+				} catch (InterruptedException e)
+				{
+					stopped = true;
+				}
+			}
+			if (stopped)
+			{
+				finished = true;
+				return;
+			}
+			int frameSize = format.getFrameSize();
+			if (givenChannel != null)
+			{
+				//carry on right where the stream before left off
+				playChannel = givenChannel;
+				givenChannel = null;
+			}
+			else
+			{
+				playChannel = AudioMixer.singleton.openChannel(bufferMillis);
+				channelFrames = 0;
+			}
+			playChannel.setGain(gain);
+			channel = playChannel;
+			channelFrameOffset = streamFrame - channelFrames;
+			buffer = new byte[framesFor(chunkMillis) * frameSize];
+			if (paused)
+				playChannel.stop();
+			else playChannel.start();
+		}
+		
+		boolean handedOff = false;
+		try
+		{
+			while (true)
+			{
+				AudioInputStream readStream;
+				int readLength = buffer.length;
+				synchronized (this)
+				{
+					waitWhilePaused();
+					if (stopped)
+						return;
+					if (seekFrame >= 0)
+					{
+						jumpTo(seekFrame);
+						seekFrame = -1;
+						channelFrames = playChannel.getLongFramePosition();
+						channelFrameOffset = streamFrame - channelFrames;
+					}
+					readStream = stream;
+					if (endFrame >= 0)
+						readLength = (int) Math.max(0, Math.min(buffer.length, (endFrame - streamFrame) * format.getFrameSize()));
+				}
+				
+				int read = readLength > 0 ? readStream.read(buffer, 0, readLength) : -1;
+				if (read < 0)
+				{
+					AudioStream following;
+					synchronized (this)
+					{
+						if (looping && streamFrame > 0)
+						{
+							//the start goes in the channel right after the end
+							jumpTo(0);
+							channelFrameOffset = -channelFrames;
+							continue;
+						}
+						following = next;
+					}
+					//the next stream writes after what's still queued, so the end of this track isn't waited on
+					if (following != null && following.takeChannel(playChannel, channelFrames))
+					{
+						handedOff = true;
+						return;
+					}
+					
+					//let the end of the track play out. Pausing or seeking meanwhile goes back around the loop
+					playChannel.drain();
+					synchronized (this)
+					{
+						if (!paused && !stopped && seekFrame < 0)
+							return;
+					}
+					continue;
+				}
+				
+				long flushCount;
+				synchronized (this)
+				{
+					//seeking drops whatever was read from the old spot
+					if (seekFrame >= 0)
+						continue;
+					streamFrame += read / format.getFrameSize();
+					channelFrames += read / format.getFrameSize();
+					//a seek or stop from here on flushes the channel, so the write is dropped instead of heard after it
+					flushCount = playChannel.getFlushCount();
+				}
+				//blocks while the channel is full or stopped for a pause. Flushing for a seek or stop lets it return
+				playChannel.write(buffer, 0, read, flushCount);
+			}
+		} finally
+		{
+			AudioStream following;
+			synchronized (this)
+			{
+				channel = null;
+				finished = true;
+				following = handedOff || stopped ? null : next;
+			}
+			if (!handedOff)
+				playChannel.close();
+			closeStream();
+			//the next stream couldn't take the channel, so it opens its own
+			if (following != null)
+				following.startWithoutChannel();
+		}
+	}
+	
+	/**
+	 * followPrevious - makes play wait for the stream before this one to end first, so it can take over that channel.
+	 * Call before play, then pass this to the other stream's setNext
+	 */
+	public synchronized void followPrevious()
+	{
+		waitingForPrevious = true;
+	}
+	
+	/**
+	 * setNext - lines up a stream to play right after this one ends by taking over this stream's channel. If this one is
+	 * already done, it opens its own
+	 * @param following stream that's had followPrevious called and is waiting in play
+	 */
+	public void setNext(AudioStream following)
+	{
+		synchronized (this)
+		{
+			if (!finished)
+			{
+				next = following;
+				return;
+			}
+			if (stopped)
+				return;
+		}
+		//already over, so there's nothing to take over
+		following.startWithoutChannel();
+	}
+	
+	/**
+	 * setLooping - sets whether the track starts over at the end instead of ending. Looping back doesn't leave a gap
+	 * @param looping true to loop
+	 */
+	public synchronized void setLooping(boolean looping)
+	{
+		this.looping = looping;
+	}
+	
+	/**
+	 * setGain - sets how loud the track is mixed, right away
+	 * @param gain 1 for as recorded, 0 for silent
+	 */
+	public synchronized void setGain(float gain)
+	{
+		this.gain = gain;
+		if (channel != null)
+			channel.setGain(gain);
+	}
+	
+	/**
+	 * fadeTo - changes how loud the track is mixed smoothly over the time given. Sets it right away if it isn't playing
+	 * @param gain gain to end at
+	 * @param millis how long the fade takes
+	 */
+	public synchronized void fadeTo(float gain, int millis)
+	{
+		this.gain = gain;
+		if (channel != null)
+			channel.fadeTo(gain, millis);
+	}
+	
+	/**
+	 * pauses playback where it is. The channel keeps what's queued so resuming picks up exactly there
+	 */
+	public synchronized void pause()
+	{
+		paused = true;
+		if (channel != null)
+			channel.stop();
+	}
+	
+	/**
+	 * resumes playback after pause
+	 */
+	public synchronized void resume()
+	{
+		paused = false;
+		if (channel != null)
+			channel.start();
+		notifyAll();
+	}
+	
+	/**
+	 * stops playback for good and closes the file. play returns soon after
+	 */
+	public synchronized void stop()
+	{
+		stopped = true;
+		if (channel != null)
+		{
+			channel.stop();
+			channel.flush();
+		}
+		notifyAll();
+		if (channel == null)
+			closeStream();
+	}
+	
+	/**
+	 * seek - jumps to a time in the track. Takes effect right away whether playing or paused
+	 * @param seconds time from the start of the track, clamped to it
+	 */
+	public synchronized void seek(float seconds)
+	{
+		long frame = Math.max(0, (long) (seconds * format.getFrameRate()));
+		if (frameLength != AudioSystem.NOT_SPECIFIED)
+			frame = Math.min(frame, frameLength);
+		seekFrame = frame;
+		//drop what's queued from the old spot so the jump is heard immediately
+		if (channel != null)
+			channel.flush();
+		notifyAll();
+	}
+	
+	/**
+	 * getPosition - time in the track that's being heard
+	 * @return seconds from the start
+	 */
+	public synchronized float getPosition()
+	{
+		if (format == null)
+			return 0;
+		long frame;
+		if (seekFrame >= 0)
+			frame = seekFrame;
+		else if (channel != null)
+			frame = channelFrameOffset + channel.getLongFramePosition();
+		else frame = streamFrame;
+		//a following stream is before its start until the track before finishes playing out
+		return Math.max(0, frame) / format.getFrameRate();
+	}
+	
+	/**
+	 * getLength - length of the track
+	 * @return seconds, or -1 if the file doesn't say
+	 */
+	public synchronized float getLength()
+	{
+		if (format == null || frameLength == AudioSystem.NOT_SPECIFIED)
+			return -1;
+		return frameLength / format.getFrameRate();
+	}
+	
+	/**
+	 * openPcm - opens a sampled audio file as PCM a channel can play, converting other encodings like u-law to 16 bit PCM
+	 * @param file file to open
+	 * @return stream of PCM frames
+	 * @throws UnsupportedAudioFileException if it isn't sampled audio Java Sound can decode
+	 * @throws IOException if it can't be read
+	 */
+	public static AudioInputStream openPcm(File file) throws UnsupportedAudioFileException, IOException
+	{
+		AudioInputStream stream = AudioSystem.getAudioInputStream(file);
+		AudioFormat format = stream.getFormat();
+		if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED || format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED)
+			return stream;
+		
+		AudioFormat pcm = new AudioFormat(
+				AudioFormat.Encoding.PCM_SIGNED,
+				format.getSampleRate(),
+				16,
+				format.getChannels(),
+				format.getChannels() * 2,
+				format.getSampleRate(),
+				true);
+		return AudioSystem.getAudioInputStream(pcm, stream);
+	}
+	
+	/**
+	 * takes over the channel of the stream before this one, if this stream is still waiting for it and can play on it
+	 * @return true if the channel was taken, false if the stream before should finish up and close it
+	 */
+	private synchronized boolean takeChannel(MixerChannel previousChannel, long previousFrames)
+	{
+		if (!waitingForPrevious || stopped || !format.matches(previousChannel.getFormat()))
+			return false;
+		givenChannel = previousChannel;
+		channelFrames = previousFrames;
+		waitingForPrevious = false;
+		notifyAll();
+		return true;
+	}
+	
+	/**
+	 * lets play go ahead with its own channel when the stream before ended without handing one over
+	 */
+	private synchronized void startWithoutChannel()
+	{
+		waitingForPrevious = false;
+		notifyAll();
+	}
+	
+	/**
+	 * waits until resumed or stopped. Must hold the lock
+	 */
+	private void waitWhilePaused()
+	{
+		while (paused && !stopped)
+		{
+			try
+			{
+				wait();
+			} catch (InterruptedException e)
+			{
+				stopped = true;
+			}
+		}
+	}
+	
+	/**
+	 * opens the file at a frame of the track. Skips through the file's own PCM before converting, so seeking doesn't
+	 * convert everything before the spot. Must hold the lock
+	 */
+	private void openAt(long frame) throws UnsupportedAudioFileException, IOException
+	{
+		if (stream != null)
+			stream.close();
+		AudioInputStream pcm = openPcm(file);
+		AudioFormat pcmFormat = pcm.getFormat();
+		double rateRatio = pcmFormat.getFrameRate() / AudioMixer.format.getFrameRate();
+		frameLength = pcm.getFrameLength() == AudioSystem.NOT_SPECIFIED ? AudioSystem.NOT_SPECIFIED : (long) (pcm.getFrameLength() / rateRatio);
+		if (endFrame >= 0 && (frameLength == AudioSystem.NOT_SPECIFIED || frameLength > endFrame))
+			frameLength = endFrame;
+		
+		long bytes = (long) (frame * rateRatio) * pcmFormat.getFrameSize();
+		long skippedBytes = 0;
+		while (skippedBytes < bytes)
+		{
+			long skipped = pcm.skip(bytes - skippedBytes);
+			if (skipped <= 0)
+				break;
+			skippedBytes += skipped;
+		}
+		
+		stream = AudioMixer.toMixerFormat(pcm);
+		format = stream.getFormat();
+		streamFrame = (long) (skippedBytes / pcmFormat.getFrameSize() / rateRatio);
+	}
+	
+	/**
+	 * moves the stream to a frame by opening the file again there. Must hold the lock
+	 */
+	private void jumpTo(long frame) throws IOException
+	{
+		try
+		{
+			openAt(frame);
+		} catch (UnsupportedAudioFileException e)
+		{
+			//it opened before, so this only happens if the file changed underneath
+			throw new IOException(e);
+		}
+	}
+	
+	/**
+	 * closes the file once play is done with it
+	 */
+	private void closeStream()
+	{
+		if (stream == null)
+			return;
+		try
+		{
+			stream.close();
+		} catch (IOException e)
+		{
+			System.out.println("Audio stream not closed! " + file + "\n" + e);
+		}
+	}
+	
+	/**
+	 * number of frames that play in the milliseconds given, at least one
+	 */
+	private int framesFor(int millis)
+	{
+		return Math.max(1, (int) (format.getFrameRate() * millis / 1000));
+	}
+}
@@ -0,0 +1,274 @@
+/**
+ * DiskEntryCache.java
+ * A directory of cache entries, one file per key, kept under a size cap by evicting the least recently used. Holds
+ * the disk side of the thumbnail and waveform caches, which each say how their entries are written and read
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class DiskEntryCache
+{
+	/** reads what's stored in an entry, after its magic number */
+	public interface EntryReader<T> {
+		/**
+		 * @param in the entry
+		 * @param entryBytes size of the whole entry, so lengths read from a corrupt one can be checked
+		 * @return what was stored
+		 * @throws IOException if the entry is corrupt
+		 */
+		T read(DataInputStream in, long entryBytes) throws IOException;
+	}
+	
+	/** writes what's stored in an entry, after its magic number */
+	public interface EntryWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+	
+	/** name of the cache in messages, like "Thumbnail" */
+	private final String name;
+	
+	/** directory the entries are stored in */
+	private final File cacheDir;
+	
+	public File getCacheDir() {
+		return cacheDir;
+	}
+	
+	/** marks the start of every entry so stale or foreign files are ignored */
+	private final int entryMagic;
+	
+	/** file extension of entries */
+	private final String entryExtension;
+	
+	/** most bytes the cache directory may hold before old entries are evicted */
+	private final long maxBytes;
+	
+	/** bytes currently in the cache directory, -1 until first counted */
+	private long totalBytes = -1;
+	
+	/** whether the cache directory is usable. Every read misses and writes are skipped if not */
+	private final boolean enabled;
+	
+	/**
+	 * DiskEntryCache - creates a cache in the supplied directory
+	 * @param name name of the cache in messages
+	 * @param cacheDir directory to store entries in. Created if it doesn't exist
+	 * @param maxBytes most bytes to keep on disk before evicting the least recently used entries
+	 * @param entryMagic number written at the start of every entry
+	 * @param entryExtension file extension of entries
+	 */
+	public DiskEntryCache(String name, File cacheDir, long maxBytes, int entryMagic, String entryExtension)
+	{
+		this.name = name;
+		this.cacheDir = cacheDir;
+		this.maxBytes = maxBytes;
+		this.entryMagic = entryMagic;
+		this.entryExtension = entryExtension;
+		enabled = maxBytes > 0 && (cacheDir.isDirectory() || cacheDir.mkdirs());
+		if (!enabled)
+			System.out.println(name + " cache disabled. Could not use " + cacheDir.getAbsolutePath());
+	}
+	
+	/**
+	 * getKey - key of a version of a file, so editing or replacing it naturally misses the old entry
+	 * @param file the original file
+	 * @return its path, modification time, and size
+	 */
+	public static String getKey(File file)
+	{
+		return file.getAbsolutePath() + "|" + file.lastModified() + "|" + file.length();
+	}
+	
+	/**
+	 * read - reads an entry and marks it as recently used. A corrupt entry is removed
+	 * @param key key of the entry
+	 * @param reader reads what's stored
+	 * @return what was stored, or null if there isn't a good entry
+	 */
+	public <T> T read(String key, EntryReader<T> reader)
+	{
+		File entry = getEntryFile(key);
+		if (entry == null || !entry.isFile())
+			return null;
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry))))
+		{
+			if (in.readInt() != entryMagic)
+				throw new IOException("not a " + name.toLowerCase() + " cache entry");
+			T value = reader.read(in, entry.length());
+			
+			//mark as recently used so it is evicted last
+			entry.setLastModified(System.currentTimeMillis());
+			return value;
+		} catch (IOException | RuntimeException e)
+		{
+			System.out.println(name + " cache entry unreadable, removing: " + entry.getName() + "\n" + e);
+			remove(entry);
+			return null;
+		}
+	}
+	
+	/**
+	 * write - stores an entry, evicting old entries if the cache is too big
+	 * @param key key of the entry
+	 * @param writer writes what's stored
+	 */
+	public void write(String key, EntryWriter writer)
+	{
+		File entry = getEntryFile(key);
+		if (entry == null)
+			return;
+		
+		//write to a temporary file first so other threads never read a half written entry
+		File temp = new File(cacheDir, entry.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))
+		{
+			out.writeInt(entryMagic);
+			writer.write(out);
+		} catch (IOException e)
+		{
+			System.out.println("Could not write " + name.toLowerCase() + " cache entry " + entry.getName() + "\n" + e);
+			temp.delete();
+			return;
+		}
+		
+		synchronized (this)
+		{
+			long oldLength = entry.length();
+			if (!temp.renameTo(entry))
+			{
+				//another thread stored the same entry at the same time
+				temp.delete();
+				return;
+			}
+			countBytes();
+			totalBytes += entry.length() - oldLength;
+			if (totalBytes > maxBytes)
+				evict();
+		}
+	}
+	
+	/**
+	 * removes every entry from the cache
+	 */
+	public synchronized void clear()
+	{
+		for (File entry : listEntries())
+			remove(entry);
+		totalBytes = 0;
+	}
+	
+	/**
+	 * deletes the least recently used entries until the cache is back under 90% of its size cap
+	 */
+	private synchronized void evict()
+	{
+		File[] entries = listEntries();
+		
+		//oldest first
+		long[] lastUsed = new long[entries.length];
+		for (int i = 0; i < entries.length; i++)
+			lastUsed[i] = entries[i].lastModified();
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(lastUsed[a], lastUsed[b]);
+			}
+		});
+		
+		long target = maxBytes / 10 * 9;
+		int evicted = 0;
+		for (int i = 0; i < order.length && totalBytes > target; i++)
+		{
+			File entry = entries[order[i]];
+			long length = entry.length();
+			if (remove(entry))
+			{
+				totalBytes -= length;
+				evicted++;
+			}
+		}
+		System.out.println(name + " cache evicted " + evicted + " entries");
+	}
+	
+	/**
+	 * counts up the size of the cache directory the first time it's needed
+	 */
+	private synchronized void countBytes()
+	{
+		if (totalBytes >= 0)
+			return;
+		
+		totalBytes = 0;
+		for (File entry : listEntries())
+			totalBytes += entry.length();
+	}
+	
+	/**
+	 * @return all the entry files in the cache directory
+	 */
+	private File[] listEntries()
+	{
+		File[] entries = cacheDir.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(entryExtension);
+			}
+		});
+		return entries != null ? entries : new File[0];
+	}
+	
+	/**
+	 * deletes an entry file
+	 * @param entry the entry to delete
+	 * @return true if deleted
+	 */
+	private boolean remove(File entry)
+	{
+		return entry.delete();
+	}
+	
+	/**
+	 * gets the file an entry is stored in, named by a hash of its key
+	 * @param key key of the entry
+	 * @return entry file, or null if the cache isn't usable
+	 */
+	private File getEntryFile(String key)
+	{
+		if (!enabled)
+			return null;
+		
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder fileName = new StringBuilder(digest.length * 2 + entryExtension.length());
+			for (byte b : digest)
+				fileName.append(String.format("%02x", b));
+			return new File(cacheDir, fileName.append(entryExtension).toString());
+		} catch (NoSuchAlgorithmException e)
+		{
+			//every Java platform is required to have SHA-1
+			return null;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * HoverIconCache.java
+ * Holds the darkened hover icons of thumbnails so each is only made once and shared between scenes, up to a memory budget
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.ImageIcon;
+
+public class HoverIconCache
+{
+	/** the one cache shared by the select and arrange scenes. Defaults to an eighth of the heap, at most 256MB */
+	public static final HoverIconCache singleton = new HoverIconCache(
+			Long.getLong("slider.hoverIconBytes", Math.min(Runtime.getRuntime().maxMemory() / 8, 256L * 1024 * 1024)));
+	
+	/** how much the select scene darkens hovered thumbnails */
+	private static final int thumbDarken = 40;
+	
+	/** how much the arrange scene darkens hovered timeline slides */
+	private static final int timelineDarken = 30;
+	
+	/** hover icons by image path and which size they are, least recently used first */
+	private final LinkedHashMap<String, ImageIcon> icons;
+	
+	/** most bytes of icons to keep */
+	private long maxBytes;
+	
+	/** bytes of icons currently kept */
+	private long residentBytes = 0;
+	
+	/** number of icons that had to be made */
+	private int misses = 0;
+	
+	public synchronized int getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * HoverIconCache - creates an empty cache
+	 * @param maxBytes most bytes of icons to keep
+	 */
+	public HoverIconCache(long maxBytes)
+	{
+		this.maxBytes = maxBytes;
+		//access order so iteration goes from least to most recently used
+		icons = new LinkedHashMap<String, ImageIcon>(16, 0.75f, true);
+	}
+	
+	/**
+	 * getThumbHover - gets the hovered version of the thumbnail's select scene image, making it the first time
+	 * @param thumb thumbnail to get the icon of. Loads it if it isn't already
+	 * @return darkened icon
+	 */
+	public ImageIcon getThumbHover(Thumbnail thumb)
+	{
+		return get(thumb, false);
+	}
+	
+	/**
+	 * getTimelineHover - gets the hovered version of the thumbnail's timeline image, making it the first time
+	 * @param thumb thumbnail to get the icon of. Loads it if it isn't already
+	 * @return darkened icon
+	 */
+	public ImageIcon getTimelineHover(Thumbnail thumb)
+	{
+		return get(thumb, true);
+	}
+	
+	/**
+	 * drops the icons of the image at the path so the next get makes them fresh
+	 * @param imagePath path of the thumbnail's image
+	 */
+	public synchronized void invalidate(String imagePath)
+	{
+		remove(keyOf(imagePath, false));
+		remove(keyOf(imagePath, true));
+	}
+	
+	/**
+	 * drops every icon
+	 */
+	public synchronized void clear()
+	{
+		icons.clear();
+		residentBytes = 0;
+	}
+	
+	/**
+	 * gets an icon, darkening the thumbnail's image into it if it isn't kept already
+	 * @param thumb thumbnail to get the icon of
+	 * @param timeline whether to get the timeline size rather than the select size
+	 * @return darkened icon
+	 */
+	private synchronized ImageIcon get(Thumbnail thumb, boolean timeline)
+	{
+		String key = keyOf(thumb.getImagePath(), timeline);
+		ImageIcon icon = icons.get(key);
+		if (icon != null)
+			return icon;
+		
+		misses++;
+		icon = new ImageIcon(timeline ? ImageEffects.darken(thumb.getImageTimeline(), timelineDarken)
+				: ImageEffects.darken(thumb.getImageThumb(), thumbDarken));
+		icons.put(key, icon);
+		residentBytes += sizeOf(icon);
+		evict();
+		return icon;
+	}
+	
+	/**
+	 * key of an icon in the map. Paths are shared so thumbnails of the same image loaded separately share icons
+	 */
+	private static String keyOf(String imagePath, boolean timeline)
+	{
+		return (timeline ? "timeline:" : "thumb:") + imagePath;
+	}
+	
+	/**
+	 * removes one icon and takes it off the bytes used
+	 */
+	private void remove(String key)
+	{
+		ImageIcon icon = icons.remove(key);
+		if (icon != null)
+			residentBytes -= sizeOf(icon);
+	}
+	
+	/**
+	 * drops least recently used icons until under budget. Always keeps the most recent one
+	 */
+	private void evict()
+	{
+		Iterator<Map.Entry<String, ImageIcon>> it = icons.entrySet().iterator();
+		while (residentBytes > maxBytes && icons.size() > 1 && it.hasNext())
+		{
+			ImageIcon icon = it.next().getValue();
+			it.remove();
+			residentBytes -= sizeOf(icon);
+		}
+	}
+	
+	/**
+	 * estimates the memory used by an icon at 4 bytes per pixel
+	 */
+	private static long sizeOf(ImageIcon icon)
+	{
+		return 4L * Math.max(icon.getIconWidth(), 0) * Math.max(icon.getIconHeight(), 0);
+	}
+}
@@ -0,0 +1,18 @@
+/**
+ * ImageCrawlListener.java
+ * Used by ImageCrawler so that it knows who to give the images it finds to
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.util.List;
+
+public interface ImageCrawlListener {
+	/**
+	 * called on the Swing event thread with the images found since the last call, while the crawl is still going
+	 * @param imagePaths absolute paths of the images found
+	 */
+	void notifyOfImagesFound(List<String> imagePaths);
+}
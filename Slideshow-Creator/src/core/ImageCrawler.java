@@ -0,0 +1,344 @@
+/**
+ * ImageCrawler.java
+ * Finds the images in a directory and everything below it on a pool of threads, handing them over in batches as they're
+ * found so big or slow folders show their first images right away. Tells an ImageWatcher about each folder so it can
+ * watch for changes
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+public class ImageCrawler
+{
+	/** folders listed at once. Listing mostly waits on the disk or network, so more than one per core */
+	private static final int threadCount = Integer.getInteger("slider.crawlThreads",
+			Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+	
+	/** images a folder collects before handing them over, so a huge folder doesn't wait until it's fully listed */
+	private static final int batchSize = 256;
+	
+	/** how often progress is printed while crawling */
+	private static final long progressMillis = 2000;
+	
+	/** threads that list the folders */
+	private final ForkJoinPool pool = new ForkJoinPool(threadCount);
+	
+	/** who to give found images to */
+	private final ImageCrawlListener listener;
+	
+	/** which images to take and which folders to go into */
+	private final ImageFilter filter = ImageFilter.singleton;
+	
+	/** told about every folder listed so it can watch them, null if nothing's watching */
+	private final ImageWatcher watcher;
+	
+	/** bumped on every crawl and cancel so folders from an old crawl stop and don't notify anybody */
+	private volatile int generation = 0;
+	
+	/**
+	 * ImageCrawler - creates a crawler with its own pool of threads that uses the filter from the system properties
+	 * @param listener who to notify on the Swing event thread when images are found
+	 */
+	public ImageCrawler(ImageCrawlListener listener)
+	{
+		this(listener, null);
+	}
+	
+	/**
+	 * ImageCrawler - creates a crawler that also hands every folder it lists to a watcher
+	 * @param listener who to notify on the Swing event thread when images are found
+	 * @param watcher watcher to start watching each folder before it's listed, null for none
+	 */
+	public ImageCrawler(ImageCrawlListener listener, ImageWatcher watcher)
+	{
+		this.listener = listener;
+		this.watcher = watcher;
+	}
+	
+	/**
+	 * crawl - starts finding the images in the directory and below it in the background, cancelling any crawl
+	 * already going
+	 * @param directory directory to look in
+	 */
+	public synchronized void crawl(String directory)
+	{
+		final Crawl crawl = new Crawl(++generation, Paths.get(directory).toAbsolutePath());
+		Thread t = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				crawl.run();
+			}
+		}, "Image Crawler " + crawl.crawlGeneration);
+		//don't keep the program open just for listing folders
+		t.setDaemon(true);
+		t.start();
+	}
+	
+	/**
+	 * stops the crawl going, if any. Images it already found but hasn't handed over are dropped
+	 */
+	public synchronized void cancel()
+	{
+		generation++;
+	}
+	
+	/**
+	 * one run through a directory, with its counts and the folders it has been in
+	 */
+	private class Crawl
+	{
+		private final int crawlGeneration;
+		
+		/** top folder. Patterns are also matched against paths from here */
+		private final Path root;
+		
+		/** identities of the folders gone into, so linked folders that loop back aren't gone through forever */
+		private final Set<Object> visited = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+		
+		/** images found but not handed over yet */
+		private final ConcurrentLinkedQueue<String> found = new ConcurrentLinkedQueue<String>();
+		
+		/** whether handing over the found images is already queued on the event thread */
+		private final AtomicBoolean flushQueued = new AtomicBoolean();
+		
+		private final AtomicInteger fileCount = new AtomicInteger();
+		private final AtomicInteger folderCount = new AtomicInteger();
+		private final AtomicInteger imageCount = new AtomicInteger();
+		
+		private long startTime;
+		
+		Crawl(int crawlGeneration, Path root)
+		{
+			this.crawlGeneration = crawlGeneration;
+			this.root = root;
+		}
+		
+		/**
+		 * lists every folder on the pool and waits for them, printing progress while it goes
+		 */
+		void run()
+		{
+			startTime = System.nanoTime();
+			try
+			{
+				BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+				firstVisit(root, attrs);
+			} catch (IOException e)
+			{
+				System.out.println("Directory not crawled! " + root + "\n" + e);
+				return;
+			}
+			
+			ScanTask top = new ScanTask(root, 0);
+			pool.execute(top);
+			while (true)
+			{
+				try
+				{
+					top.get(progressMillis, TimeUnit.MILLISECONDS);
+					break;
+				} catch (TimeoutException e)
+				{
+					if (!isCurrent())
+						return;
+					System.out.println("Crawling " + root + ": " + progress());
+				} catch (InterruptedException | ExecutionException e)
+				{
+					System.out.println("Crawl stopped! " + root + "\n" + e);
+					return;
+				}
+			}
+			
+			if (isCurrent())
+			{
+				queueFlush();
+				System.out.println("Crawled " + root + ": " + progress());
+			}
+		}
+		
+		/**
+		 * whether no crawl or cancel has happened since this crawl started
+		 */
+		boolean isCurrent()
+		{
+			return crawlGeneration == generation;
+		}
+		
+		/**
+		 * lists one folder, queueing the images in it and splitting off a task for each folder in it
+		 */
+		void scan(Path folder, int depth, List<ScanTask> subfolders)
+		{
+			//watch first so nothing added while listing is missed
+			if (watcher != null)
+				watcher.watch(folder);
+			
+			List<String> images = new ArrayList<String>();
+			List<Path> allImages = new ArrayList<Path>();
+			LinkOption[] linkOptions = filter.getLinkOptions();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder))
+			{
+				for (Path entry : entries)
+				{
+					if (!isCurrent())
+						return;
+					
+					BasicFileAttributes attrs;
+					try
+					{
+						attrs = Files.readAttributes(entry, BasicFileAttributes.class, linkOptions);
+					} catch (IOException e)
+					{
+						//broken link or gone since it was listed
+						continue;
+					}
+					
+					if (attrs.isDirectory())
+					{
+						if (filter.acceptsFolder(root, entry, depth + 1) && firstVisit(entry, attrs))
+							subfolders.add(new ScanTask(entry, depth + 1));
+					}
+					else if (attrs.isRegularFile())
+					{
+						fileCount.incrementAndGet();
+						if (filter.acceptsImage(root, entry))
+						{
+							allImages.add(entry);
+							images.add(entry.toString());
+							if (images.size() >= batchSize)
+							{
+								hand(images);
+								images = new ArrayList<String>();
+							}
+						}
+					}
+				}
+			} catch (IOException | DirectoryIteratorException e)
+			{
+				System.out.println("Directory not crawled! " + folder + "\n" + e);
+			}
+			folderCount.incrementAndGet();
+			hand(images);
+			//after handing over so the watcher's changes to this folder come after its images
+			if (watcher != null)
+				watcher.listed(folder, allImages);
+		}
+		
+		/**
+		 * queues images to be handed over. Sorted so a folder's images stay in name order
+		 */
+		private void hand(List<String> images)
+		{
+			if (images.isEmpty())
+				return;
+			Collections.sort(images);
+			imageCount.addAndGet(images.size());
+			found.addAll(images);
+			queueFlush();
+		}
+		
+		/**
+		 * queues handing over the found images on the event thread, unless that's already queued. Folders found
+		 * in a burst go over together instead of one event each
+		 */
+		private void queueFlush()
+		{
+			if (!flushQueued.compareAndSet(false, true))
+				return;
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					flushQueued.set(false);
+					List<String> images = new ArrayList<String>();
+					String image;
+					while ((image = found.poll()) != null)
+						images.add(image);
+					if (isCurrent() && !images.isEmpty())
+						listener.notifyOfImagesFound(images);
+				}
+			});
+		}
+		
+		/**
+		 * marks a folder as gone into
+		 * @return true if it hadn't been gone into yet through any path
+		 */
+		private boolean firstVisit(Path folder, BasicFileAttributes attrs)
+		{
+			Object key = attrs.fileKey();
+			if (key == null)
+			{
+				//file system has no file keys, so tell folders apart by where their links lead
+				try
+				{
+					key = folder.toRealPath();
+				} catch (IOException e)
+				{
+					return false;
+				}
+			}
+			return visited.add(key);
+		}
+		
+		/**
+		 * counts so far and how fast files are going by
+		 */
+		private String progress()
+		{
+			double seconds = Math.max((System.nanoTime() - startTime) / 1e9, 1e-3);
+			return String.format("%d images in %d files and %d folders, %.2fs (%.0f files/sec)",
+					imageCount.get(), fileCount.get(), folderCount.get(), seconds, fileCount.get() / seconds);
+		}
+		
+		/**
+		 * lists one folder, then the folders in it in parallel
+		 */
+		private class ScanTask extends RecursiveAction
+		{
+			private static final long serialVersionUID = 1L;
+			
+			private final Path folder;
+			private final int depth;
+			
+			ScanTask(Path folder, int depth)
+			{
+				this.folder = folder;
+				this.depth = depth;
+			}
+			
+			@Override
+			protected void compute()
+			{
+				List<ScanTask> subfolders = new ArrayList<ScanTask>();
+				scan(folder, depth, subfolders);
+				if (isCurrent())
+					invokeAll(subfolders);
+			}
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * ImageEffects.java
+ * Darkens, fills, and tints images for hovered and disabled buttons, working straight on the int pixels
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public final class ImageEffects
+{
+	/** images with fewer pixels than this are done on the calling thread, splitting them costs more than it saves */
+	private static final int parallelPixels = 1 << 18;
+	
+	/** fewest pixels a parallel piece of an image gets */
+	private static final int pieceSize = 1 << 16;
+	
+	private ImageEffects()
+	{
+	}
+	
+	/**
+	 * darken - darkens every pixel that isn't fully transparent and makes it opaque, like a hovered button
+	 * @param image image to darken. Must be fully loaded
+	 * @param amount how much to take off each of red, green, and blue
+	 * @return new darkened image
+	 */
+	public static BufferedImage darken(Image image, final int amount)
+	{
+		return apply(image, new Effect() {
+			@Override
+			void apply(int[] pixels, int from, int to)
+			{
+				for (int i = from; i < to; i++)
+				{
+					int p = pixels[i];
+					if ((p >>> 24) != 0)
+					{
+						int r = Math.max(((p >> 16) & 0xFF) - amount, 0);
+						int g = Math.max(((p >> 8) & 0xFF) - amount, 0);
+						int b = Math.max((p & 0xFF) - amount, 0);
+						pixels[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+					}
+				}
+			}
+		});
+	}
+	
+	/**
+	 * fill - replaces every pixel that isn't fully transparent with an opaque color, leaving just the shape
+	 * @param image image to fill. Must be fully loaded
+	 * @param color color to fill with
+	 * @return new filled image
+	 */
+	public static BufferedImage fill(Image image, Color color)
+	{
+		final int argb = 0xFF000000 | color.getRGB();
+		return apply(image, new Effect() {
+			@Override
+			void apply(int[] pixels, int from, int to)
+			{
+				for (int i = from; i < to; i++)
+					if ((pixels[i] >>> 24) != 0)
+						pixels[i] = argb;
+			}
+		});
+	}
+	
+	/**
+	 * recolor - replaces the color of every pixel with the color given but keeps each pixel's alpha, so soft edges
+	 * stay soft
+	 * @param image image to recolor. Must be fully loaded
+	 * @param color color to use. Its alpha is ignored
+	 * @return new recolored image
+	 */
+	public static BufferedImage recolor(Image image, Color color)
+	{
+		final int rgb = color.getRGB() & 0xFFFFFF;
+		return apply(image, new Effect() {
+			@Override
+			void apply(int[] pixels, int from, int to)
+			{
+				for (int i = from; i < to; i++)
+				{
+					int p = pixels[i];
+					if ((p >>> 24) != 0)
+						pixels[i] = (p & 0xFF000000) | rgb;
+				}
+			}
+		});
+	}
+	
+	/**
+	 * tint - mixes every pixel halfway to the color given, keeping each pixel's alpha
+	 * @param image image to tint. Must be fully loaded
+	 * @param color color to tint towards. Its alpha is ignored
+	 * @return new tinted image
+	 */
+	public static BufferedImage tint(Image image, Color color)
+	{
+		final int rgb = color.getRGB() & 0xFFFFFF;
+		return apply(image, new Effect() {
+			@Override
+			void apply(int[] pixels, int from, int to)
+			{
+				for (int i = from; i < to; i++)
+				{
+					int p = pixels[i];
+					//average all three channels at once: the shared bits plus half the differing bits, masked so no
+					//channel's low bit shifts into the channel below
+					int mixed = (p & rgb) + (((p ^ rgb) & 0xFEFEFE) >>> 1);
+					pixels[i] = (p & 0xFF000000) | (mixed & 0xFFFFFF);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * something done to a range of packed ARGB pixels
+	 */
+	private static abstract class Effect
+	{
+		/**
+		 * changes pixels from index from up to but not including index to
+		 */
+		abstract void apply(int[] pixels, int from, int to);
+	}
+	
+	/**
+	 * applies the effect to a copy of the image on its pixel array, splitting big images across the common pool
+	 * @param image image to copy. Must be fully loaded
+	 * @param effect what to do to the pixels
+	 * @return the copy in ARGB
+	 */
+	private static BufferedImage apply(Image image, Effect effect)
+	{
+		int width = image.getWidth(null);
+		int height = image.getHeight(null);
+		
+		//draw into a scratch image and work on its array directly. It's thrown away after, so taking the array and
+		//stopping Java2D from caching it on the video card costs nothing
+		BufferedImage scratch = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = scratch.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		int[] pixels = ((DataBufferInt) scratch.getRaster().getDataBuffer()).getData();
+		
+		if (pixels.length < parallelPixels)
+			effect.apply(pixels, 0, pixels.length);
+		else ForkJoinPool.commonPool().invoke(new EffectTask(effect, pixels, 0, pixels.length));
+		
+		//setDataElements copies the pixels in without stopping Java2D from caching the result
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		result.getRaster().setDataElements(0, 0, width, height, pixels);
+		return result;
+	}
+	
+	/**
+	 * splits a range of pixels in half until the pieces are small, then applies the effect to each piece
+	 */
+	private static class EffectTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final Effect effect;
+		private final int[] pixels;
+		private final int from;
+		private final int to;
+		
+		EffectTask(Effect effect, int[] pixels, int from, int to)
+		{
+			this.effect = effect;
+			this.pixels = pixels;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from <= pieceSize * 2)
+			{
+				effect.apply(pixels, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new EffectTask(effect, pixels, from, middle), new EffectTask(effect, pixels, middle, to));
+		}
+	}
+}
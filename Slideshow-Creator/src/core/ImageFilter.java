@@ -0,0 +1,135 @@
+/**
+ * ImageFilter.java
+ * Decides which files under a project directory are images to show and which folders to look in, so crawling and
+ * watching the directory agree
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.nio.file.FileSystems;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class ImageFilter
+{
+	/**
+	 * the filter set up by the system properties. slider.crawlInclude and slider.crawlExclude take comma separated globs,
+	 * slider.crawlFollowLinks=false skips links, and slider.crawlMaxDepth limits how many folders down to look
+	 */
+	public static final ImageFilter singleton = new ImageFilter(
+			System.getProperty("slider.crawlInclude", ""),
+			System.getProperty("slider.crawlExclude", ""),
+			Boolean.parseBoolean(System.getProperty("slider.crawlFollowLinks", "true")),
+			Integer.getInteger("slider.crawlMaxDepth", Integer.MAX_VALUE));
+	
+	/** file extensions counted as images, lower case */
+	private static final Set<String> imageExtensions = new HashSet<String>(Arrays.asList("jpg", "jpeg", "png", "gif", "bmp"));
+	
+	/** images must match one of these if there are any */
+	private final List<PathMatcher> includes;
+	
+	/** images and folders matching any of these are skipped */
+	private final List<PathMatcher> excludes;
+	
+	/** options for reading attributes, so links are followed or not */
+	private final LinkOption[] linkOptions;
+	
+	/** most folders down from the top to look in, 0 for just the top folder */
+	private final int maxDepth;
+	
+	/**
+	 * ImageFilter - creates a filter
+	 * @param includeGlobs comma separated globs images must match one of, or empty for any image
+	 * @param excludeGlobs comma separated globs of images and folders to skip
+	 * @param followLinks whether to go into linked folders and take linked images
+	 * @param maxDepth most folders down from the top to look in
+	 */
+	public ImageFilter(String includeGlobs, String excludeGlobs, boolean followLinks, int maxDepth)
+	{
+		includes = parsePatterns(includeGlobs);
+		excludes = parsePatterns(excludeGlobs);
+		linkOptions = followLinks ? new LinkOption[0] : new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+		this.maxDepth = maxDepth;
+	}
+	
+	/**
+	 * getLinkOptions - options to read files' attributes with. Links are only followed if the filter allows it
+	 * @return link options, empty to follow links
+	 */
+	public LinkOption[] getLinkOptions()
+	{
+		return linkOptions.clone();
+	}
+	
+	/**
+	 * acceptsImage - whether a regular file is an image that should be shown
+	 * @param root top folder of the project
+	 * @param file the file
+	 * @return true if it has an image extension, matches the includes, and isn't excluded
+	 */
+	public boolean acceptsImage(Path root, Path file)
+	{
+		return isImage(file) && (includes.isEmpty() || matches(includes, root, file)) && !matches(excludes, root, file);
+	}
+	
+	/**
+	 * acceptsFolder - whether to look in a folder
+	 * @param root top folder of the project
+	 * @param folder the folder
+	 * @param depth how many folders down from the top it is
+	 * @return true if it isn't too deep and isn't excluded
+	 */
+	public boolean acceptsFolder(Path root, Path folder, int depth)
+	{
+		return depth <= maxDepth && !matches(excludes, root, folder);
+	}
+	
+	/**
+	 * whether the file's extension is one of the image extensions
+	 */
+	private static boolean isImage(Path file)
+	{
+		String name = file.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return dot >= 0 && imageExtensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+	}
+	
+	/**
+	 * whether a pattern matches the path's name or its path from the top folder, so "*.gif" and "raw/**" both work
+	 */
+	private static boolean matches(List<PathMatcher> patterns, Path root, Path path)
+	{
+		if (patterns.isEmpty())
+			return false;
+		Path relative = root.relativize(path);
+		Path name = path.getFileName();
+		for (PathMatcher pattern : patterns)
+			if (pattern.matches(name) || pattern.matches(relative))
+				return true;
+		return false;
+	}
+	
+	/**
+	 * makes glob matchers out of a comma separated list of globs
+	 */
+	private static List<PathMatcher> parsePatterns(String globs)
+	{
+		List<PathMatcher> patterns = new ArrayList<PathMatcher>();
+		for (String glob : globs.split(","))
+		{
+			glob = glob.trim();
+			if (!glob.isEmpty())
+				patterns.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+		}
+		return patterns;
+	}
+}
@@ -0,0 +1,275 @@
+/**
+ * ImageScaler.java
+ * Scales images synchronously with smooth filtering, halving repeatedly for big reductions
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+public final class ImageScaler
+{
+	/** screen configuration to make images for, null if there is no screen */
+	private static final GraphicsConfiguration screenConfig = GraphicsEnvironment.isHeadless() ? null
+			: GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+	
+	private ImageScaler()
+	{
+	}
+	
+	/**
+	 * scale - scales the image to exactly the size specified. Averages 2x2 blocks of pixels to halve the image until it's
+	 * within a factor of two of the target, then does the last step with bilinear filtering. Halving first keeps big
+	 * reductions from skipping pixels, which is what makes a single bilinear step look grainy
+	 * Works straight on the int pixels rather than through Graphics2D, whose filtered scaling is slow in software
+	 * @param image image to scale. Must be fully loaded
+	 * @param width width of result
+	 * @param height height of result
+	 * @return new image of width by height in a format that draws quickly to the screen
+	 */
+	public static BufferedImage scale(Image image, int width, int height)
+	{
+		width = Math.max(width, 1);
+		height = Math.max(height, 1);
+		
+		BufferedImage source = Thumbnail.toBufferedImage(image);
+		boolean hasAlpha = source.getColorModel().hasAlpha();
+		int srcWidth = source.getWidth();
+		int srcHeight = source.getHeight();
+		int[] pixels;
+		
+		//halve while it's more than twice as big as it needs to be. The first halving reads the source a strip at a
+		//time so a huge photo is never copied whole
+		if (srcWidth / 2 >= width && srcHeight / 2 >= height)
+		{
+			pixels = halve(source, hasAlpha);
+			srcWidth /= 2;
+			srcHeight /= 2;
+			while (srcWidth / 2 >= width && srcHeight / 2 >= height)
+			{
+				pixels = halve(pixels, srcWidth, srcHeight);
+				srcWidth /= 2;
+				srcHeight /= 2;
+			}
+		}
+		else pixels = getPixels(source, hasAlpha);
+		
+		int[] scaled = srcWidth == width && srcHeight == height ? pixels : bilinear(pixels, srcWidth, srcHeight, width, height);
+		
+		//setDataElements copies the pixels in without stopping Java2D from caching the image on the video card
+		BufferedImage result = new BufferedImage(width, height, hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		result.getRaster().setDataElements(0, 0, width, height, scaled);
+		return toCompatibleImage(result);
+	}
+	
+	/**
+	 * createCompatibleImage - makes a blank image in the format the screen uses so drawing it needs no conversion
+	 * @param width width of image
+	 * @param height height of image
+	 * @param hasAlpha whether the image needs transparency
+	 * @return blank image
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height, boolean hasAlpha)
+	{
+		if (screenConfig != null)
+			return screenConfig.createCompatibleImage(width, height, hasAlpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE);
+		return new BufferedImage(width, height, hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+	}
+	
+	/**
+	 * converts an image to the screen's format if it isn't already in it
+	 * @param image image to convert
+	 * @return image if already compatible, otherwise a converted copy
+	 */
+	private static BufferedImage toCompatibleImage(BufferedImage image)
+	{
+		if (screenConfig == null || screenConfig.getColorModel(image.getTransparency()).equals(image.getColorModel()))
+			return image;
+		
+		BufferedImage compatible = createCompatibleImage(image.getWidth(), image.getHeight(), image.getColorModel().hasAlpha());
+		Graphics2D g = compatible.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return compatible;
+	}
+	
+	/**
+	 * gets a copy of the image's pixels as packed (A)RGB ints, converting through a draw if it isn't stored that way
+	 */
+	private static int[] getPixels(BufferedImage image, boolean hasAlpha)
+	{
+		int type = hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		if (image.getType() != type)
+		{
+			BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+			Graphics2D g = converted.createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(image, 0, 0, null);
+			g.dispose();
+			image = converted;
+		}
+		return (int[]) image.getRaster().getDataElements(0, 0, image.getWidth(), image.getHeight(), null);
+	}
+	
+	/**
+	 * halves a whole image by averaging each 2x2 block of pixels into one, reading it a strip of rows at a time
+	 * @param image image to halve
+	 * @param hasAlpha whether to keep the alpha channel
+	 * @return pixels of image width / 2 by height / 2
+	 */
+	private static int[] halve(BufferedImage image, boolean hasAlpha)
+	{
+		int width = image.getWidth();
+		int newWidth = width / 2;
+		int newHeight = image.getHeight() / 2;
+		int[] dest = new int[newWidth * newHeight];
+		
+		int type = hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		boolean direct = image.getType() == type;
+		int stripRows = 32;
+		BufferedImage strip = direct ? null : new BufferedImage(width, stripRows, type);
+		//the strip is only ever used here so taking its array directly costs nothing
+		int[] stripPixels = direct ? new int[width * stripRows] : ((DataBufferInt) strip.getRaster().getDataBuffer()).getData();
+		
+		for (int y = 0; y < newHeight * 2; y += stripRows)
+		{
+			int rows = Math.min(stripRows, newHeight * 2 - y);
+			if (direct)
+				image.getRaster().getDataElements(0, y, width, rows, stripPixels);
+			else
+			{
+				//let Java2D convert whatever format the image is in
+				Graphics2D g = strip.createGraphics();
+				g.setComposite(AlphaComposite.Src);
+				g.drawImage(image, 0, -y, null);
+				g.dispose();
+			}
+			halveRows(stripPixels, width, rows, dest, y / 2 * newWidth);
+		}
+		return dest;
+	}
+	
+	/**
+	 * halves an image by averaging each 2x2 block of pixels into one. Drops the last row or column if odd
+	 * @param src pixels of image to halve
+	 * @param width width of src
+	 * @param height height of src
+	 * @return pixels of image width / 2 by height / 2
+	 */
+	private static int[] halve(int[] src, int width, int height)
+	{
+		int[] dest = new int[(width / 2) * (height / 2)];
+		halveRows(src, width, height / 2 * 2, dest, 0);
+		return dest;
+	}
+	
+	/**
+	 * averages each 2x2 block of an even number of rows into one pixel of dest
+	 * @param src pixels to halve
+	 * @param width width of src
+	 * @param rows number of rows of src to halve. Must be even
+	 * @param dest where to put the halved pixels
+	 * @param destOffset index in dest of the first halved pixel
+	 */
+	private static void halveRows(int[] src, int width, int rows, int[] dest, int destOffset)
+	{
+		int newWidth = width / 2;
+		
+		for (int y = 0; y < rows / 2; y++)
+		{
+			int top = 2 * y * width;
+			int bottom = top + width;
+			int out = destOffset + y * newWidth;
+			for (int x = 0; x < newWidth; x++)
+			{
+				int p00 = src[top + 2 * x];
+				int p01 = src[top + 2 * x + 1];
+				int p10 = src[bottom + 2 * x];
+				int p11 = src[bottom + 2 * x + 1];
+				
+				//add up red and blue together then alpha and green together, each channel gets 16 bits so the sums of 4
+				//can't spill into the next one. Then divide by 4, rounding
+				int rb = (p00 & 0xFF00FF) + (p01 & 0xFF00FF) + (p10 & 0xFF00FF) + (p11 & 0xFF00FF) + 0x20002;
+				int ag = ((p00 >>> 8) & 0xFF00FF) + ((p01 >>> 8) & 0xFF00FF) + ((p10 >>> 8) & 0xFF00FF)
+						+ ((p11 >>> 8) & 0xFF00FF) + 0x20002;
+				dest[out + x] = ((ag << 6) & 0xFF00FF00) | ((rb >>> 2) & 0xFF00FF);
+			}
+		}
+	}
+	
+	/**
+	 * scales an image to any size by blending the four nearest source pixels of each result pixel
+	 * Uses 8 bit fixed point weights so there's no floating point in the inner loop
+	 * @param src pixels of image to scale
+	 * @param srcWidth width of src
+	 * @param srcHeight height of src
+	 * @param width width of result
+	 * @param height height of result
+	 * @return pixels of scaled image
+	 */
+	private static int[] bilinear(int[] src, int srcWidth, int srcHeight, int width, int height)
+	{
+		int[] dest = new int[width * height];
+		
+		//work out the left source column and its weight for every result column once
+		int[] x0s = new int[width];
+		int[] xWeights = new int[width];
+		for (int x = 0; x < width; x++)
+		{
+			double sx = Math.max((x + 0.5) * srcWidth / width - 0.5, 0);
+			x0s[x] = Math.min((int) sx, srcWidth - 1);
+			xWeights[x] = (int) ((sx - x0s[x]) * 256);
+		}
+		
+		for (int y = 0; y < height; y++)
+		{
+			double sy = Math.max((y + 0.5) * srcHeight / height - 0.5, 0);
+			int y0 = Math.min((int) sy, srcHeight - 1);
+			int yWeight = (int) ((sy - y0) * 256);
+			int row0 = y0 * srcWidth;
+			int row1 = Math.min(y0 + 1, srcHeight - 1) * srcWidth;
+			int out = y * width;
+			
+			for (int x = 0; x < width; x++)
+			{
+				int x0 = x0s[x];
+				int x1 = Math.min(x0 + 1, srcWidth - 1);
+				int xw = xWeights[x];
+				int p00 = src[row0 + x0];
+				int p01 = src[row0 + x1];
+				int p10 = src[row1 + x0];
+				int p11 = src[row1 + x1];
+				
+				//blend red and blue together then alpha and green together. Weights are out of 256 so each
+				//channel fits in its own 16 bits
+				int rb = blend(blend(p00 & 0xFF00FF, p01 & 0xFF00FF, xw), blend(p10 & 0xFF00FF, p11 & 0xFF00FF, xw), yWeight);
+				int ag = blend(blend((p00 >>> 8) & 0xFF00FF, (p01 >>> 8) & 0xFF00FF, xw),
+						blend((p10 >>> 8) & 0xFF00FF, (p11 >>> 8) & 0xFF00FF, xw), yWeight);
+				dest[out + x] = (ag << 8) | rb;
+			}
+		}
+		return dest;
+	}
+	
+	/**
+	 * blends two pairs of channels each stored as 0x00XX00XX
+	 * @param c0 channels to weight by 256 - weight
+	 * @param c1 channels to weight by weight
+	 * @param weight how much of c1 to use out of 256
+	 * @return blended channels as 0x00XX00XX
+	 */
+	private static int blend(int c0, int c1, int weight)
+	{
+		return ((c0 * (256 - weight) + c1 * weight + 0x800080) >>> 8) & 0xFF00FF;
+	}
+}
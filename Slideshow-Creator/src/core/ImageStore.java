@@ -0,0 +1,173 @@
+/**
+ * ImageStore.java
+ * Holds full size slide images up to a memory budget, dropping the least recently used ones when it runs over
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.awt.Image;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ImageStore
+{
+	/** the one store shared by the creator preview and the viewer. Defaults to a quarter of the heap, at most 512MB */
+	public static final ImageStore singleton = new ImageStore(
+			Long.getLong("slider.imageStoreBytes", Math.min(Runtime.getRuntime().maxMemory() / 4, 512L * 1024 * 1024)));
+	
+	/** loaded images by absolute path, least recently used first */
+	private final LinkedHashMap<String, Image> images;
+	
+	/** most bytes of images to keep loaded */
+	private long maxBytes;
+	
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * changes the memory budget, evicting images right away if it shrank
+	 * @param maxBytes most bytes of images to keep loaded
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+	
+	/** bytes of images currently loaded */
+	private long residentBytes = 0;
+	
+	public synchronized long getResidentBytes() {
+		return residentBytes;
+	}
+	
+	/** number of images dropped to stay under budget */
+	private int evictions = 0;
+	
+	public synchronized int getEvictions() {
+		return evictions;
+	}
+	
+	/** number of times an image had to be loaded from disk */
+	private int loads = 0;
+	
+	public synchronized int getLoads() {
+		return loads;
+	}
+	
+	/**
+	 * ImageStore - creates an empty store
+	 * @param maxBytes most bytes of images to keep loaded
+	 */
+	public ImageStore(long maxBytes)
+	{
+		this.maxBytes = maxBytes;
+		//access order so iteration goes from least to most recently used
+		images = new LinkedHashMap<String, Image>(16, 0.75f, true);
+	}
+	
+	/**
+	 * get - gets the full size image at the path, loading it if it isn't in memory
+	 * @param imagePath absolute path to the image
+	 * @return the image, or null if it couldn't be loaded
+	 * 
+	 * IMPORTANT: THIS METHOD IS ONLY FOR EXTERNAL FILES OF ABSOLUTE PATHS, NOT FOR PROJECT RESOURCES
+	 */
+	public Image get(String imagePath)
+	{
+		synchronized (this)
+		{
+			Image image = images.get(imagePath);
+			if (image != null)
+				return image;
+		}
+		
+		//load outside the lock so other images can be handed out meanwhile
+		Image image = Thumbnail.loadImage(imagePath);
+		if (image == null)
+			return null;
+		
+		synchronized (this)
+		{
+			loads++;
+			
+			//someone else loaded it at the same time, so use theirs
+			Image existing = images.get(imagePath);
+			if (existing != null)
+				return existing;
+			
+			images.put(imagePath, image);
+			residentBytes += sizeOf(image);
+			evict();
+			return image;
+		}
+	}
+	
+	/**
+	 * whether the image at the path is in memory right now
+	 * @param imagePath absolute path to the image
+	 * @return true if get would not have to load it
+	 */
+	public synchronized boolean contains(String imagePath)
+	{
+		return images.containsKey(imagePath);
+	}
+	
+	/**
+	 * drops the image at the path so the next get loads it fresh
+	 * @param imagePath absolute path to the image
+	 */
+	public synchronized void invalidate(String imagePath)
+	{
+		Image image = images.remove(imagePath);
+		if (image != null)
+			residentBytes -= sizeOf(image);
+	}
+	
+	/**
+	 * drops every image
+	 */
+	public synchronized void clear()
+	{
+		images.clear();
+		residentBytes = 0;
+	}
+	
+	/**
+	 * prints how much memory the store is using
+	 */
+	public synchronized void printStats()
+	{
+		System.out.println("Image store: " + images.size() + " images, " + (residentBytes / (1024 * 1024)) + "MB of " + (maxBytes / (1024 * 1024)) + "MB, "
+				+ loads + " loads, " + evictions + " evictions");
+	}
+	
+	/**
+	 * drops least recently used images until under budget. Always keeps the most recent one so a single image
+	 * bigger than the budget still displays
+	 */
+	private synchronized void evict()
+	{
+		Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+		while (residentBytes > maxBytes && images.size() > 1 && it.hasNext())
+		{
+			Image image = it.next().getValue();
+			it.remove();
+			residentBytes -= sizeOf(image);
+			evictions++;
+		}
+	}
+	
+	/**
+	 * estimates the memory used by an image at 4 bytes per pixel
+	 * @param image image to measure
+	 * @return bytes used
+	 */
+	private static long sizeOf(Image image)
+	{
+		return 4L * Math.max(image.getWidth(null), 0) * Math.max(image.getHeight(null), 0);
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * ImageWatchListener.java
+ * Used by ImageWatcher so that it knows who to tell when images in the project directory change
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.util.List;
+
+public interface ImageWatchListener {
+	/**
+	 * called on the Swing event thread after a burst of changes to the project directory settles
+	 * @param added absolute paths of new images
+	 * @param removed absolute paths of images that were deleted or moved away
+	 * @param modified absolute paths of images that were written to and need loading again
+	 */
+	void notifyOfImagesChanged(List<String> added, List<String> removed, List<String> modified);
+}
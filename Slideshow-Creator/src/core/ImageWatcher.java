@@ -0,0 +1,450 @@
+/**
+ * ImageWatcher.java
+ * Watches the project directory and every folder under it for images being added, deleted, or written to. Bursts of
+ * changes are gathered up and only the folders that changed are listed again, so nothing is rescanned or redecoded
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+public class ImageWatcher
+{
+	/** how long the directory has to go without changes before a burst of them is handled */
+	private static final long quietMillis = 300;
+	
+	/** longest a steady stream of changes waits before what's come in so far is handled */
+	private static final long maxWaitMillis = 2000;
+	
+	/** who to tell about changed images */
+	private final ImageWatchListener listener;
+	
+	/** which images to take and which folders to go into, the same as the crawler */
+	private final ImageFilter filter = ImageFilter.singleton;
+	
+	/** watch service of the directory being watched, null if not watching */
+	private WatchService service;
+	
+	/** top folder being watched */
+	private Path root;
+	
+	/** bumped on every start and stop so changes from the old directory don't notify anybody */
+	private int generation = 0;
+	
+	/** watched folders by their watch key */
+	private final Map<WatchKey, Path> folders = new HashMap<WatchKey, Path>();
+	
+	/** watch keys by their folder */
+	private final Map<Path, WatchKey> keys = new HashMap<Path, WatchKey>();
+	
+	/** identities of the watched folders, so linked folders that loop back are only watched once */
+	private final Set<Object> watchedIds = new HashSet<Object>();
+	
+	/** identity of each watched folder, so it can be forgotten once the folder is gone */
+	private final Map<Path, Object> folderIds = new HashMap<Path, Object>();
+	
+	/** images last seen in each watched folder, once it has been listed */
+	private final Map<Path, Set<Path>> contents = new HashMap<Path, Set<Path>>();
+	
+	/** folders that changed and haven't been listed again yet */
+	private final Set<Path> dirtyFolders = new HashSet<Path>();
+	
+	/** files written to since changes were last handled */
+	private final Set<Path> modifiedFiles = new HashSet<Path>();
+	
+	/**
+	 * ImageWatcher - creates a watcher that isn't watching anything yet
+	 * @param listener who to notify on the Swing event thread when images change
+	 */
+	public ImageWatcher(ImageWatchListener listener)
+	{
+		this.listener = listener;
+	}
+	
+	/**
+	 * start - gets ready to watch a directory, stopping any watching already going. Folders are only watched once
+	 * they're passed to watch and listed, which the crawler does as it goes
+	 * @param directory top folder of the project
+	 */
+	public synchronized void start(String directory)
+	{
+		stop();
+		try
+		{
+			service = FileSystems.getDefault().newWatchService();
+		} catch (IOException e)
+		{
+			System.out.println("Directory not watched! " + directory + "\n" + e);
+			return;
+		}
+		root = Paths.get(directory).toAbsolutePath();
+		
+		final WatchService watchService = service;
+		final int watchGeneration = generation;
+		Thread t = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watchLoop(watchService, watchGeneration);
+			}
+		}, "Image Watcher " + watchGeneration);
+		//don't keep the program open just for watching
+		t.setDaemon(true);
+		t.start();
+	}
+	
+	/**
+	 * stops watching and forgets every folder. Changes not handled yet are dropped
+	 */
+	public synchronized void stop()
+	{
+		generation++;
+		if (service != null)
+		{
+			try
+			{
+				service.close();
+			} catch (IOException e)
+			{
+				System.out.println("Watch service not closed!\n" + e);
+			}
+			service = null;
+		}
+		folders.clear();
+		keys.clear();
+		watchedIds.clear();
+		folderIds.clear();
+		contents.clear();
+		dirtyFolders.clear();
+		modifiedFiles.clear();
+	}
+	
+	/**
+	 * watch - starts watching a folder for changes. Call before listing it so nothing added while listing is missed
+	 * @param folder folder under the directory being watched
+	 */
+	public synchronized void watch(Path folder)
+	{
+		//a cancelled crawl of an old directory can still be finishing
+		if (service != null && folder.startsWith(root))
+			register(folder);
+	}
+	
+	/**
+	 * listed - tells the watcher what images were in a folder when it was listed, so later changes can be compared
+	 * against it. Changes to the folder before this are held until it's called
+	 * @param folder folder that was listed, already passed to watch
+	 * @param images images found in it
+	 */
+	public synchronized void listed(Path folder, List<Path> images)
+	{
+		if (keys.containsKey(folder))
+			contents.put(folder, new HashSet<Path>(images));
+	}
+	
+	/**
+	 * waits for changes and handles them once they settle, until the watch service is closed
+	 */
+	private void watchLoop(WatchService watchService, int watchGeneration)
+	{
+		try
+		{
+			while (true)
+			{
+				//folders changed before the crawler listed them are tried again once it might have
+				WatchKey key = hasDirtyFolders() ? watchService.poll(quietMillis, TimeUnit.MILLISECONDS) : watchService.take();
+				long burstStart = System.currentTimeMillis();
+				while (key != null)
+				{
+					collect(key);
+					if (System.currentTimeMillis() - burstStart >= maxWaitMillis)
+						break;
+					key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+				}
+				handleChanges(watchGeneration);
+			}
+		} catch (ClosedWatchServiceException | InterruptedException e)
+		{
+			//stopped
+		}
+	}
+	
+	private synchronized boolean hasDirtyFolders()
+	{
+		return !dirtyFolders.isEmpty();
+	}
+	
+	/**
+	 * marks the folder of a watch key as changed and remembers which files were written to
+	 */
+	private synchronized void collect(WatchKey key)
+	{
+		Path folder = folders.get(key);
+		for (WatchEvent<?> event : key.pollEvents())
+		{
+			if (folder == null)
+				continue;
+			//overflows have no file, but listing the folder again catches up on them too
+			dirtyFolders.add(folder);
+			if (event.kind() == ENTRY_MODIFY)
+				modifiedFiles.add(folder.resolve((Path) event.context()));
+		}
+		
+		//the folder is gone or can't be watched any more. Listing its parent again drops it
+		if (!key.reset() && folder != null && keys.containsKey(folder.getParent()))
+			dirtyFolders.add(folder.getParent());
+	}
+	
+	/**
+	 * lists the changed folders again and tells the listener what changed in them
+	 */
+	private void handleChanges(int watchGeneration)
+	{
+		List<Path> changedFolders = new ArrayList<Path>();
+		Set<Path> written;
+		synchronized (this)
+		{
+			if (watchGeneration != generation)
+				return;
+			Iterator<Path> it = dirtyFolders.iterator();
+			while (it.hasNext())
+			{
+				Path folder = it.next();
+				//folders not listed yet stay dirty until they are
+				if (contents.containsKey(folder) || !keys.containsKey(folder))
+				{
+					if (keys.containsKey(folder))
+						changedFolders.add(folder);
+					it.remove();
+				}
+			}
+			written = new HashSet<Path>(modifiedFiles);
+			modifiedFiles.clear();
+		}
+		
+		Set<Path> added = new HashSet<Path>();
+		Set<Path> removed = new HashSet<Path>();
+		for (Path folder : changedFolders)
+			relist(folder, watchGeneration, added, removed);
+		
+		List<String> modified = new ArrayList<String>();
+		synchronized (this)
+		{
+			for (Path file : written)
+			{
+				Set<Path> images = contents.get(file.getParent());
+				if (!added.contains(file) && images != null && images.contains(file))
+					modified.add(file.toString());
+			}
+		}
+		
+		if (!added.isEmpty() || !removed.isEmpty() || !modified.isEmpty())
+			notifyListener(watchGeneration, toSortedStrings(added), toSortedStrings(removed), modified);
+	}
+	
+	/**
+	 * lists a folder again and compares it to what was there before. New folders in it are watched and listed too,
+	 * and folders gone from it stop being watched
+	 */
+	private void relist(Path folder, int watchGeneration, Set<Path> added, Set<Path> removed)
+	{
+		Set<Path> images = new HashSet<Path>();
+		List<Path> subfolders = new ArrayList<Path>();
+		boolean listed = list(folder, images, subfolders);
+		
+		List<Path> newFolders = new ArrayList<Path>();
+		synchronized (this)
+		{
+			if (watchGeneration != generation || !keys.containsKey(folder))
+				return;
+			if (!listed)
+			{
+				unwatchTree(folder, removed);
+				return;
+			}
+			
+			Set<Path> before = contents.put(folder, images);
+			if (before == null)
+				before = Collections.emptySet();
+			for (Path image : images)
+				if (!before.contains(image))
+					added.add(image);
+			for (Path image : before)
+				if (!images.contains(image))
+					removed.add(image);
+			
+			//folders that were in this one and aren't any more
+			for (Path watched : new ArrayList<Path>(keys.keySet()))
+				if (folder.equals(watched.getParent()) && !subfolders.contains(watched))
+					unwatchTree(watched, removed);
+			
+			for (Path subfolder : subfolders)
+				if (register(subfolder))
+					newFolders.add(subfolder);
+		}
+		
+		//new folders are watched before they're listed, same as the crawler does
+		for (Path subfolder : newFolders)
+			relist(subfolder, watchGeneration, added, removed);
+	}
+	
+	/**
+	 * lists the images and folders the filter takes in a folder
+	 * @return false if the folder couldn't be listed, like if it was deleted
+	 */
+	private boolean list(Path folder, Set<Path> images, List<Path> subfolders)
+	{
+		LinkOption[] linkOptions = filter.getLinkOptions();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder))
+		{
+			for (Path entry : entries)
+			{
+				BasicFileAttributes attrs;
+				try
+				{
+					attrs = Files.readAttributes(entry, BasicFileAttributes.class, linkOptions);
+				} catch (IOException e)
+				{
+					//broken link or gone since it was listed
+					continue;
+				}
+				
+				if (attrs.isDirectory())
+				{
+					if (filter.acceptsFolder(root, entry, depthOf(entry)))
+						subfolders.add(entry);
+				}
+				else if (attrs.isRegularFile() && filter.acceptsImage(root, entry))
+					images.add(entry);
+			}
+			return true;
+		} catch (IOException | DirectoryIteratorException e)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * starts watching a folder unless it or a folder it's linked to is already watched
+	 * @return true if it's newly watched
+	 */
+	private boolean register(Path folder)
+	{
+		if (keys.containsKey(folder))
+			return false;
+		try
+		{
+			BasicFileAttributes attrs = Files.readAttributes(folder, BasicFileAttributes.class, filter.getLinkOptions());
+			//file systems without file keys tell folders apart by where their links lead
+			Object id = attrs.fileKey() != null ? attrs.fileKey() : folder.toRealPath();
+			if (!watchedIds.add(id))
+				return false;
+			
+			WatchKey key;
+			try
+			{
+				key = folder.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+			} catch (IOException e)
+			{
+				watchedIds.remove(id);
+				throw e;
+			}
+			folders.put(key, folder);
+			keys.put(folder, key);
+			folderIds.put(folder, id);
+			return true;
+		} catch (IOException e)
+		{
+			System.out.println("Folder not watched! " + folder + "\n" + e);
+			return false;
+		}
+	}
+	
+	/**
+	 * stops watching a folder and every folder under it, counting all their images as removed
+	 */
+	private void unwatchTree(Path folder, Set<Path> removed)
+	{
+		for (Path watched : new ArrayList<Path>(keys.keySet()))
+		{
+			if (watched.startsWith(folder))
+			{
+				WatchKey key = keys.remove(watched);
+				key.cancel();
+				folders.remove(key);
+				watchedIds.remove(folderIds.remove(watched));
+				dirtyFolders.remove(watched);
+				Set<Path> images = contents.remove(watched);
+				if (images != null)
+					removed.addAll(images);
+			}
+		}
+	}
+	
+	/**
+	 * how many folders down from the top a folder is
+	 */
+	private int depthOf(Path folder)
+	{
+		return folder.equals(root) ? 0 : root.relativize(folder).getNameCount();
+	}
+	
+	/**
+	 * tells the listener about changes on the event thread, unless the watcher was stopped or restarted first
+	 */
+	private void notifyListener(final int watchGeneration, final List<String> added, final List<String> removed, final List<String> modified)
+	{
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (isCurrent(watchGeneration))
+					listener.notifyOfImagesChanged(added, removed, modified);
+			}
+		});
+	}
+	
+	private synchronized boolean isCurrent(int watchGeneration)
+	{
+		return watchGeneration == generation;
+	}
+	
+	/**
+	 * paths as strings in name order, so images added together show up in order
+	 */
+	private static List<String> toSortedStrings(Set<Path> paths)
+	{
+		List<String> strings = new ArrayList<String>(paths.size());
+		for (Path path : paths)
+			strings.add(path.toString());
+		Collections.sort(strings);
+		return strings;
+	}
+}
@@ -0,0 +1,253 @@
+/**
+ * MixerChannel.java
+ * One track's way into the AudioMixer. Works like a line: audio written to it waits in a small buffer until the mixer
+ * pulls it, and it can be started, stopped, flushed, and drained. Each channel has its own gain, which can fade
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import javax.sound.sampled.AudioFormat;
+
+public class MixerChannel
+{
+	/** mixer pulling from this channel */
+	private final AudioMixer mixer;
+	
+	/** audio waiting to be mixed, in the mixer's format */
+	private final byte[] buffer;
+	
+	/** where in buffer the mixer reads next */
+	private int readIndex = 0;
+	
+	/** bytes waiting in buffer */
+	private int queued = 0;
+	
+	/** frames the mixer has pulled since the channel opened */
+	private long framePosition = 0;
+	
+	/** counts flushes, so writing and draining can tell they were flushed while waiting */
+	private long flushes = 0;
+	
+	private boolean running = false;
+	private boolean open = true;
+	
+	/** gain the next frame is mixed at, 1 for as written */
+	private float gain = 1;
+	
+	/** gain a fade is heading to */
+	private float fadeGain = 1;
+	
+	/** how much the gain changes each frame while fading, 0 when not fading */
+	private float fadeStep = 0;
+	
+	/**
+	 * MixerChannel - creates a channel. Opened through AudioMixer.openChannel
+	 * @param mixer mixer pulling from it
+	 * @param bufferBytes how much audio it holds ahead of the mix
+	 */
+	MixerChannel(AudioMixer mixer, int bufferBytes)
+	{
+		this.mixer = mixer;
+		buffer = new byte[bufferBytes];
+	}
+	
+	/**
+	 * getFormat - format audio is written to the channel in
+	 * @return the mixer's format
+	 */
+	public AudioFormat getFormat()
+	{
+		return AudioMixer.format;
+	}
+	
+	/**
+	 * write - queues audio to be mixed. Blocks while the buffer is full, until all of it is queued or the channel is
+	 * flushed or closed. Writes nothing if it was flushed since flushCount was read, so a writer that read its audio
+	 * under its own lock can't queue it after a flush that was meant to drop it
+	 * @param bytes audio in the mixer's format
+	 * @param offset where in bytes to start
+	 * @param length how many bytes to write, whole frames
+	 * @param flushCount what getFlushCount returned when the audio was read
+	 * @return how many bytes were queued
+	 */
+	public synchronized int write(byte[] bytes, int offset, int length, long flushCount)
+	{
+		int written = 0;
+		while (written < length && open && flushes == flushCount)
+		{
+			if (queued == buffer.length)
+			{
+				waitForMixer();
+				continue;
+			}
+			int writeIndex = (readIndex + queued) % buffer.length;
+			int count = Math.min(length - written, Math.min(buffer.length - queued, buffer.length - writeIndex));
+			System.arraycopy(bytes, offset + written, buffer, writeIndex, count);
+			queued += count;
+			written += count;
+		}
+		return written;
+	}
+	
+	/**
+	 * drain - blocks until everything queued has been mixed, or the channel is stopped, flushed, or closed
+	 */
+	public synchronized void drain()
+	{
+		long flushed = flushes;
+		while (queued > 0 && running && open && flushes == flushed)
+			waitForMixer();
+	}
+	
+	/**
+	 * getFlushCount - how many times the channel has been flushed
+	 * @return flush count, to pass to write
+	 */
+	public synchronized long getFlushCount()
+	{
+		return flushes;
+	}
+	
+	/**
+	 * flush - drops everything queued and lets a blocked write return
+	 */
+	public synchronized void flush()
+	{
+		readIndex = 0;
+		queued = 0;
+		flushes++;
+		notifyAll();
+	}
+	
+	/**
+	 * start - lets the mixer pull from the channel
+	 */
+	public synchronized void start()
+	{
+		running = true;
+		notifyAll();
+	}
+	
+	/**
+	 * stop - stops the mixer pulling from the channel, keeping what's queued
+	 */
+	public synchronized void stop()
+	{
+		running = false;
+		notifyAll();
+	}
+	
+	/**
+	 * close - takes the channel out of the mixer for good
+	 */
+	public void close()
+	{
+		synchronized (this)
+		{
+			open = false;
+			notifyAll();
+		}
+		mixer.closeChannel(this);
+	}
+	
+	/**
+	 * getLongFramePosition - frames the mixer has pulled since the channel opened
+	 * @return frames mixed
+	 */
+	public synchronized long getLongFramePosition()
+	{
+		return framePosition;
+	}
+	
+	/**
+	 * setGain - sets the gain right away, ending any fade
+	 * @param gain 1 for as written, 0 for silent
+	 */
+	public synchronized void setGain(float gain)
+	{
+		this.gain = fadeGain = Math.max(0, gain);
+		fadeStep = 0;
+	}
+	
+	/**
+	 * fadeTo - changes the gain smoothly over the time given, as the channel is mixed
+	 * @param gain gain to end at
+	 * @param millis how long the fade takes
+	 */
+	public synchronized void fadeTo(float gain, int millis)
+	{
+		long frames = (long) (AudioMixer.format.getFrameRate() * millis / 1000);
+		if (frames <= 0)
+		{
+			setGain(gain);
+			return;
+		}
+		fadeGain = Math.max(0, gain);
+		fadeStep = (fadeGain - this.gain) / frames;
+	}
+	
+	/**
+	 * getGain - gain the channel is being mixed at now
+	 * @return current gain, partway through any fade
+	 */
+	public synchronized float getGain()
+	{
+		return gain;
+	}
+	
+	/**
+	 * adds up to frames frames of queued audio into mix, scaled by the gain. Called by the mixer's thread
+	 */
+	synchronized void mixInto(float[] mix, int frames)
+	{
+		if (!running || !open)
+			return;
+		int frameSize = AudioMixer.format.getFrameSize();
+		int channels = AudioMixer.format.getChannels();
+		int count = Math.min(frames, queued / frameSize);
+		for (int frame = 0; frame < count; frame++)
+		{
+			for (int channel = 0; channel < channels; channel++)
+			{
+				int sample = (buffer[readIndex] & 0xff) | (buffer[readIndex + 1] << 8);
+				mix[frame * channels + channel] += sample * gain;
+				readIndex = (readIndex + 2) % buffer.length;
+			}
+			if (fadeStep != 0)
+				stepFade();
+		}
+		queued -= count * frameSize;
+		framePosition += count;
+		if (count > 0)
+			notifyAll();
+	}
+	
+	/**
+	 * moves the gain one frame further through the fade
+	 */
+	private void stepFade()
+	{
+		gain += fadeStep;
+		if (fadeStep > 0 ? gain >= fadeGain : gain <= fadeGain)
+		{
+			gain = fadeGain;
+			fadeStep = 0;
+		}
+	}
+	
+	/**
+	 * waits for the mixer to pull something or the channel to change. Must hold the lock
+	 */
+	private void waitForMixer()
+	{
+		try
+		{
+			wait();
+		} catch (InterruptedException e)
+		{
+			//callers check whether to keep waiting
+		}
+	}
+}
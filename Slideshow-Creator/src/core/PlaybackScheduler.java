@@ -0,0 +1,96 @@
+/**
+ * PlaybackScheduler.java
+ * Runs slideshow timers and transitions on a fixed pair of threads instead of a new thread for each one
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class PlaybackScheduler
+{
+	/** the one scheduler all playback shares */
+	public static final PlaybackScheduler singleton = new PlaybackScheduler();
+	
+	/** thread that waits out slide and transition times */
+	private final ScheduledExecutorService timers;
+	
+	/** thread that draws transitions. Separate from the timers so a transition playing doesn't hold them up */
+	private final ExecutorService transitions;
+	
+	/**
+	 * PlaybackScheduler - creates a scheduler with its timer and transition threads
+	 */
+	private PlaybackScheduler()
+	{
+		timers = Executors.newSingleThreadScheduledExecutor(createThreadFactory("Playback Timer"));
+		transitions = Executors.newSingleThreadExecutor(createThreadFactory("Transition Player"));
+	}
+	
+	/**
+	 * schedule - runs the task on the timer thread after the delay
+	 * @param task what to run. Exceptions are printed rather than lost in the future
+	 * @param delayMillis milliseconds to wait first
+	 * @return future to cancel the task with
+	 */
+	public ScheduledFuture<?> schedule(Runnable task, long delayMillis)
+	{
+		return timers.schedule(printExceptions(task), Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * playTransition - runs the transition on the transition thread
+	 * @param transition draws the transition, returning when it's done
+	 * @return future that completes the moment the transition finishes
+	 */
+	public CompletableFuture<Void> playTransition(Runnable transition)
+	{
+		return CompletableFuture.runAsync(printExceptions(transition), transitions);
+	}
+	
+	/**
+	 * wraps a task so anything it throws gets printed instead of silently ending up in its future
+	 * @param task task to wrap
+	 * @return task that prints exceptions
+	 */
+	private static Runnable printExceptions(Runnable task)
+	{
+		return new Runnable() {
+			@Override
+			public void run() {
+				try
+				{
+					task.run();
+				} catch (RuntimeException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		};
+	}
+	
+	/**
+	 * creates daemon threads with the name given so playback doesn't keep the program open
+	 * @param name name of the thread
+	 * @return thread factory
+	 */
+	private static ThreadFactory createThreadFactory(String name)
+	{
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+}
@@ -111,6 +111,9 @@ public class SceneHandler {
 	
 	public final Map<TransitionType, ImageIcon> transitionImages;
 	
+	/** transition images filled in for hovered buttons, made once here so the timeline never remakes them */
+	public final Map<TransitionType, ImageIcon> transitionHoverImages;
+	
 	/**
 	 * SceneHandler - creates program with specified app type
 	 * @param aT AppType to open
@@ -135,6 +138,9 @@ public class SceneHandler {
 		transitionImages.put(TransitionType.WIPE_LEFT, new ImageIcon(getClass().getResource("/core/TransitionImages/wipeLeft.png")));
 		transitionImages.put(TransitionType.WIPE_RIGHT, new ImageIcon(getClass().getResource("/core/TransitionImages/wipeRight.png")));
 		transitionImages.put(TransitionType.WIPE_UP, new ImageIcon(getClass().getResource("/core/TransitionImages/wipeUp.png")));
+		transitionHoverImages = new HashMap<TransitionType, ImageIcon>();
+		for (Map.Entry<TransitionType, ImageIcon> entry : transitionImages.entrySet())
+			transitionHoverImages.put(entry.getKey(), new ImageIcon(ImageEffects.fill(entry.getValue().getImage(), SliderColor.hover_beige)));
 		
 		launch();
 	}
@@ -148,6 +154,10 @@ public class SceneHandler {
 	 */
 	public boolean launch()
 	{
+		//the renderer runs headless with no window
+		if (appType == AppType.RENDERER)
+			return false;
+		
 		ImageIcon slideshowIcon = new ImageIcon(getClass().getResource("/core/Images/slideshowIcon.png"));
 		
 		if(appType == AppType.CREATOR) {
@@ -35,6 +35,9 @@ public final class SliderColor {
 	/** Create custom aqua color */
 	public static final Color aqua = new Color(132, 200, 202);
 	
+	/** Create custom beige color for hovered transition icons */
+	public static final Color hover_beige = new Color(217, 202, 192);
+	
 	/** Create custom white color */
 	public static final Color white = new Color(255, 255, 255);
 
@@ -20,8 +20,12 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.swing.ImageIcon;
 
 public class Thumbnail
@@ -29,6 +33,14 @@ public class Thumbnail
 	private static Coord2 thumbSize = new Coord2(290, 170);
 	private static Coord2 timelineSize = new Coord2(260, 140);
 	
+	public static Coord2 getThumbSize() {
+		return thumbSize;
+	}
+	
+	public static Coord2 getTimelineSize() {
+		return timelineSize;
+	}
+	
     /**
      * Publicly read-only path to image
      */
@@ -39,12 +51,19 @@ public class Thumbnail
     }
 
     /**
-     * Publicly read-only image itself
+     * Image itself, only kept here for project resources. Images from files live in the ImageStore
      */
     private Image imageRaw;
 
+    /**
+     * gets the full size image, loading it into the shared ImageStore if it isn't already there
+     * @return full size image
+     */
     public Image getImageRaw() {
-        return imageRaw;
+    	//project resources are small so the thumbnail keeps them
+    	if (imageRaw != null)
+    		return imageRaw;
+        return ImageStore.singleton.get(imagePath);
     }
     
     /**
@@ -52,7 +71,8 @@ public class Thumbnail
      */
     private Image imageTimeline;
     
-    public Image getImageTimeline() {
+    public synchronized Image getImageTimeline() {
+        load();
     	return imageTimeline;
     }
     
@@ -61,9 +81,19 @@ public class Thumbnail
      */
     private Image imageThumb;
     
-    public Image getImageThumb() {
+    public synchronized Image getImageThumb() {
+        load();
     	return imageThumb;
     }
+    
+    /**
+     * whether the images have been loaded and resized yet. Volatile so checking it never waits on a load in progress
+     */
+    private volatile boolean loaded = false;
+    
+    public boolean isLoaded() {
+    	return loaded;
+    }
 
     /**
      * Thumbnail - creates an image from given path
@@ -75,11 +105,88 @@ public class Thumbnail
      * @author Timothy Couch
      */
     public Thumbnail(String imagePath)
+    {
+        this(imagePath, true);
+    }
+
+    /**
+     * Thumbnail - creates a thumbnail for the given path, optionally putting off loading the image
+     * @param imagePath string file path to image (can be from current directory or full directory)
+     * @param loadNow whether to load the image right away. If false, the image loads on the first call to load() or any image getter
+     * 
+     * IMPORTANT: THIS METHOD IS ONLY FOR EXTERNAL FILES OF ABSOLUTE PATHS, NOT FOR PROJECT RESOURCES
+     * Example: new Thumbnail(file.getAbsolutePath(), false)
+     */
+    public Thumbnail(String imagePath, boolean loadNow)
     {
         this.imagePath = imagePath;
-        imageRaw = loadImage(imagePath);
-        imageThumb = resizeImageThumb(imageRaw);
-        imageTimeline = resizeImageTimeline(imageRaw);
+        if (loadNow)
+        	load();
+    }
+    
+    /**
+     * load - gets the thumbnail and timeline images from the thumbnail cache, or loads the image from imagePath and resizes it
+     * if it isn't cached. Does nothing if already loaded
+     * Safe to call from any thread. Other threads asking for the images wait until it finishes
+     */
+    public synchronized void load()
+    {
+    	if (loaded)
+    		return;
+    	
+    	File imFile = new File(imagePath);
+    	BufferedImage[] cached = ThumbnailCache.singleton.get(imFile);
+    	if (cached != null)
+    	{
+    		imageThumb = cached[0];
+    		imageTimeline = cached[1];
+    	}
+    	else
+    	{
+    		//only decode enough pixels for the thumbnails. The full image loads when the slide is displayed
+	        Image imageSmall = loadImageSubsampled(imagePath, Math.max(thumbSize.x, timelineSize.x), Math.max(thumbSize.y, timelineSize.y));
+	        if (imageSmall == null)
+	        {
+	        	//the file is gone or unreadable, but slides can still point at it, so show a blank instead
+	        	imageThumb = makePlaceholder(thumbSize);
+	        	imageTimeline = makePlaceholder(timelineSize);
+	        	loaded = true;
+	        	return;
+	        }
+	        imageThumb = resizeImageThumb(imageSmall);
+	        imageTimeline = resizeImageTimeline(imageSmall);
+	        ThumbnailCache.singleton.put(imFile, (BufferedImage) imageThumb, (BufferedImage) imageTimeline);
+    	}
+        loaded = true;
+    }
+    
+    /**
+     * makePlaceholder - makes a blank image to stand in for one that can't be loaded
+     * @param size size of the image
+     * @return image filled with the background color
+     */
+    private static BufferedImage makePlaceholder(Coord2 size)
+    {
+    	BufferedImage placeholder = new BufferedImage(size.x, size.y, BufferedImage.TYPE_INT_RGB);
+    	Graphics g = placeholder.getGraphics();
+    	g.setColor(SliderColor.medium_gray);
+    	g.fillRect(0, 0, size.x, size.y);
+    	g.dispose();
+    	return placeholder;
+    }
+    
+    /**
+     * unload - drops the thumbnail and timeline images to save memory. They come back from the thumbnail cache the next
+     * time they're asked for. Does nothing for project resources, which can't be loaded again
+     */
+    public synchronized void unload()
+    {
+    	if (imageRaw != null)
+    		return;
+    	
+    	loaded = false;
+    	imageThumb = null;
+    	imageTimeline = null;
     }
 
     /**
@@ -96,6 +203,7 @@ public class Thumbnail
         this.imagePath = imagePath.getPath();
         imageRaw = loadImage(imagePath);
         imageThumb = resizeImageThumb(imageRaw);
+        loaded = true;
     }
 
     /**
@@ -129,6 +237,68 @@ public class Thumbnail
         return image;
     }
 
+    /**
+     * loadImageSubsampled - loads a reduced resolution copy of the image at the absolute path specified, reading only every
+     * few pixels so large photos never get decoded at full size. Uses the thumbnail embedded in the file instead if it's big enough
+     * @param imagePath the absolute path from which to load the image
+     * @param minWidth smallest width the result will be resized to
+     * @param minHeight smallest height the result will be resized to
+     * @return image at least twice minWidth by minHeight where the original allows, or the full image if it can't be subsampled.
+     * null if the image couldn't be loaded
+     * 
+     * IMPORTANT: THIS METHOD IS ONLY FOR EXTERNAL FILES OF ABSOLUTE PATHS, NOT FOR PROJECT RESOURCES
+     */
+    public static Image loadImageSubsampled(String imagePath, int minWidth, int minHeight)
+    {
+        File imFile = new File(imagePath);
+        if (!imFile.exists())
+        {
+        	System.out.println("Image not loaded! " + imagePath + " does not exist");
+        	return null;
+        }
+        
+        try (ImageInputStream in = ImageIO.createImageInputStream(imFile))
+        {
+        	Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+        	if (readers != null && readers.hasNext())
+        	{
+        		ImageReader reader = readers.next();
+        		try
+        		{
+        			reader.setInput(in, true, false);
+        			
+        			//use the embedded thumbnail if the camera saved one big enough
+        			if (reader.readerSupportsThumbnails() && reader.hasThumbnails(0))
+        			{
+        				for (int i = 0; i < reader.getNumThumbnails(0); i++)
+        					if (reader.getThumbnailWidth(0, i) >= minWidth && reader.getThumbnailHeight(0, i) >= minHeight)
+        						return reader.readThumbnail(0, i);
+        			}
+        			
+        			//skip pixels so the result is still twice the size it will be resized to, which keeps the resize smooth
+        			int width = reader.getWidth(0);
+        			int height = reader.getHeight(0);
+        			int step = Math.max(1, Math.min(width / (minWidth * 2), height / (minHeight * 2)));
+        			
+        			ImageReadParam param = reader.getDefaultReadParam();
+        			param.setSourceSubsampling(step, step, 0, 0);
+        			return reader.read(0, param);
+        		}
+        		finally
+        		{
+        			reader.dispose();
+        		}
+        	}
+        }
+        catch (IOException e)
+        {
+            System.out.println("Exception: Subsampled image not loaded, loading full image! " + imagePath + "\n" + e);
+        }
+        
+        //no reader for this type or it failed, so fall back on the regular full load
+        return loadImage(imagePath);
+    }
+
     /**
      * loadImage - loads up an image from the resource path
      * @param imagePath the resource path from which to load the image
@@ -153,10 +323,10 @@ public class Thumbnail
      * resizeImageTimeline - resizes the raw image to the proper size for timeline
      * @return resized image
      */
-    private Image resizeImageTimeline(Image image)
+    private BufferedImage resizeImageTimeline(Image image)
     {
         int[] imageDims = getLetterBoxCoords(image.getWidth(null), image.getHeight(null), timelineSize.x, timelineSize.y);
-        return image.getScaledInstance(imageDims[2], imageDims[3], Image.SCALE_DEFAULT);
+        return ImageScaler.scale(image, imageDims[2], imageDims[3]);
     }
     
     /**
@@ -165,12 +335,12 @@ public class Thumbnail
      * 
      * @author Timothy Couch
      */
-    private Image resizeImageThumb(Image image) throws NullPointerException
+    private BufferedImage resizeImageThumb(Image image) throws NullPointerException
     {
     	try
     	{
 	        int[] imageDims = getLetterBoxCoords(image.getWidth(null), image.getHeight(null), thumbSize.x, thumbSize.y);
-	        return image.getScaledInstance(imageDims[2], imageDims[3], Image.SCALE_DEFAULT);
+	        return ImageScaler.scale(image, imageDims[2], imageDims[3]);
     	} catch (NullPointerException npe)
     	{
     		throw npe;
@@ -185,7 +355,7 @@ public class Thumbnail
      */
     public static Image resizeImageContainer(Container container, Image image) {
         int[] imageDims = getLetterBoxCoords(image.getWidth(null), image.getHeight(null), container.getWidth(), container.getHeight());
-        return toBufferedImage(image.getScaledInstance(imageDims[2], imageDims[3], Image.SCALE_DEFAULT));
+        return ImageScaler.scale(image, imageDims[2], imageDims[3]);
     }
     
     /**
@@ -227,7 +397,7 @@ public class Thumbnail
      */
     public boolean drawFill(Graphics g, Container container)
     {
-    	return drawImageFill(imageRaw, g, container);
+    	return drawImageFill(getImageRaw(), g, container);
     }
 
     
@@ -338,7 +508,7 @@ public class Thumbnail
      * 
      * @author Timothy Couch
      */
-    private static int[] getLetterBoxCoords(int imageWidth, int imageHeight, double containerWidth, double containerHeight) {
+    public static int[] getLetterBoxCoords(int imageWidth, int imageHeight, double containerWidth, double containerHeight) {
         int[] dimensions = new int[4];
 
         // determine if borders need to be vertical or horizontal
@@ -0,0 +1,157 @@
+/**
+ * ThumbnailCache.java
+ * Keeps resized thumbnails on disk so reopening a directory doesn't decode every full size image again
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+public class ThumbnailCache
+{
+	/** the one shared cache in the user's home directory */
+	public static final ThumbnailCache singleton = new ThumbnailCache(
+			new File(System.getProperty("user.home"), ".slider" + File.separator + "thumbnails"),
+			Long.getLong("slider.thumbnailCacheBytes", 256L * 1024 * 1024));
+	
+	/** marks the start of every entry so stale or foreign files are ignored */
+	private static final int entryMagic = 0x534C5431;//"SLT1"
+	
+	/** file extension of cache entries */
+	private static final String entryExtension = ".thumb";
+	
+	/** entries on disk */
+	private final DiskEntryCache disk;
+	
+	public File getCacheDir() {
+		return disk.getCacheDir();
+	}
+	
+	/** number of lookups that found an entry */
+	private final AtomicInteger hits = new AtomicInteger();
+	
+	public int getHits() {
+		return hits.get();
+	}
+	
+	/** number of lookups that didn't find an entry */
+	private final AtomicInteger misses = new AtomicInteger();
+	
+	public int getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * ThumbnailCache - creates a cache in the supplied directory
+	 * @param cacheDir directory to store thumbnails in. Created if it doesn't exist
+	 * @param maxBytes most bytes to keep on disk before evicting the least recently used entries
+	 */
+	public ThumbnailCache(File cacheDir, long maxBytes)
+	{
+		disk = new DiskEntryCache("Thumbnail", cacheDir, maxBytes, entryMagic, entryExtension);
+	}
+	
+	/**
+	 * get - looks up the cached thumbnail images for an image file
+	 * @param imageFile the original image file
+	 * @return BufferedImage[2]: {thumb, timeline} if cached for this exact version of the file, null otherwise
+	 */
+	public BufferedImage[] get(File imageFile)
+	{
+		BufferedImage[] images = null;
+		if (imageFile.isFile())
+		{
+			images = disk.read(DiskEntryCache.getKey(imageFile), new DiskEntryCache.EntryReader<BufferedImage[]>() {
+				@Override
+				public BufferedImage[] read(DataInputStream in, long entryBytes) throws IOException {
+					BufferedImage thumb = readImage(in, entryBytes);
+					BufferedImage timeline = readImage(in, entryBytes);
+					return new BufferedImage[] {thumb, timeline};
+				}
+			});
+		}
+		
+		if (images != null)
+			hits.incrementAndGet();
+		else misses.incrementAndGet();
+		return images;
+	}
+	
+	/**
+	 * put - stores the thumbnail images for an image file, evicting old entries if the cache is too big
+	 * @param imageFile the original image file
+	 * @param thumb image at thumbnail size
+	 * @param timeline image at timeline size
+	 */
+	public void put(File imageFile, BufferedImage thumb, BufferedImage timeline)
+	{
+		if (!imageFile.isFile() || thumb == null || timeline == null)
+			return;
+		
+		disk.write(DiskEntryCache.getKey(imageFile), new DiskEntryCache.EntryWriter() {
+			@Override
+			public void write(DataOutputStream out) throws IOException {
+				writeImage(out, thumb);
+				writeImage(out, timeline);
+			}
+		});
+	}
+	
+	/**
+	 * removes every entry from the cache
+	 */
+	public void clear()
+	{
+		disk.clear();
+	}
+	
+	/**
+	 * prints how effective the cache has been
+	 */
+	public void printStats()
+	{
+		int h = getHits();
+		int m = getMisses();
+		System.out.println("Thumbnail cache hits: " + h + " misses: " + m + (h + m > 0 ? " (" + (100 * h / (h + m)) + "% hit)" : ""));
+	}
+	
+	/**
+	 * writes an image into the entry as a length-prefixed PNG
+	 */
+	private static void writeImage(DataOutputStream out, BufferedImage image) throws IOException
+	{
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		if (!ImageIO.write(image, "png", png))
+			throw new IOException("no PNG writer");
+		out.writeInt(png.size());
+		png.writeTo(out);
+	}
+	
+	/**
+	 * reads a length-prefixed PNG out of the entry, checking the length against the size of the entry so a corrupt one
+	 * can't ask for a huge array
+	 */
+	private static BufferedImage readImage(DataInputStream in, long entryBytes) throws IOException
+	{
+		int length = in.readInt();
+		if (length < 0 || length > entryBytes)
+			throw new IOException("PNG length " + length + " doesn't fit in the entry");
+		byte[] png = new byte[length];
+		in.readFully(png);
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+		if (image == null)
+			throw new IOException("corrupt PNG");
+		return image;
+	}
+}
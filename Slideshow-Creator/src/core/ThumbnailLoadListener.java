@@ -0,0 +1,17 @@
+/**
+ * ThumbnailLoadListener.java
+ * Used by ThumbnailLoader so that it knows who to tell when a thumbnail finishes loading
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+public interface ThumbnailLoadListener {
+	/**
+	 * called on the Swing event thread once the thumbnail at index has its images ready
+	 * @param index index the thumbnail was queued with
+	 * @param thumbnail the thumbnail that finished loading
+	 */
+	void notifyOfThumbnailLoaded(int index, Thumbnail thumbnail);
+}
@@ -0,0 +1,182 @@
+/**
+ * ThumbnailLoader.java
+ * Loads and resizes thumbnails on a pool of worker threads so the GUI doesn't freeze
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+public class ThumbnailLoader
+{
+	/** number of thumbnails to decode at once. One per core */
+	private static final int workerCount = Math.max(1, Runtime.getRuntime().availableProcessors());
+	
+	/** threads that do the loading */
+	private final ExecutorService workers;
+	
+	/** who to tell when a thumbnail finishes */
+	private final ThumbnailLoadListener listener;
+	
+	/** loads that have been queued and may not have finished yet, by the thumbnail they load */
+	private IdentityHashMap<Thumbnail, Future<?>> pending;
+	
+	/** bumped on every cancel so loads from before the cancel don't notify anybody */
+	private int generation = 0;
+	
+	/**
+	 * ThumbnailLoader - creates a loader with its own pool of worker threads
+	 * @param listener who to notify on the Swing event thread when each thumbnail is ready
+	 */
+	public ThumbnailLoader(ThumbnailLoadListener listener)
+	{
+		this.listener = listener;
+		pending = new IdentityHashMap<Thumbnail, Future<?>>();
+		workers = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+			private int threadCount = 0;
+			
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Thumbnail Loader " + threadCount++);
+				//don't keep the program open just for thumbnails
+				t.setDaemon(true);
+				//keep the GUI responsive while decoding
+				t.setPriority(Thread.NORM_PRIORITY - 1);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * queues every thumbnail in the list that isn't loaded yet
+	 * @param thumbs list of thumbnails to load. Indices passed to the listener match this list
+	 */
+	public synchronized void load(ThumbnailsList thumbs)
+	{
+		for (int i = 0; i < thumbs.getSize(); i++)
+			load(i, thumbs.getThumbnail(i));
+	}
+	
+	/**
+	 * loadOnly - queues the thumbnails from first to last that aren't loaded yet, in order, and takes back any queued
+	 * thumbnails outside that range that haven't started. Loads already running finish and notify as usual
+	 * @param thumbs list of thumbnails. Indices passed to the listener match this list
+	 * @param first index of the first thumbnail to load
+	 * @param last index of the last thumbnail to load
+	 */
+	public synchronized void loadOnly(ThumbnailsList thumbs, int first, int last)
+	{
+		IdentityHashMap<Thumbnail, Boolean> wanted = new IdentityHashMap<Thumbnail, Boolean>();
+		for (int i = first; i <= last && i < thumbs.getSize(); i++)
+			wanted.put(thumbs.getThumbnail(i), Boolean.TRUE);
+		
+		Iterator<Map.Entry<Thumbnail, Future<?>>> it = pending.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Thumbnail, Future<?>> entry = it.next();
+			if (!wanted.containsKey(entry.getKey()))
+			{
+				entry.getValue().cancel(false);
+				it.remove();
+			}
+		}
+		
+		for (int i = first; i <= last && i < thumbs.getSize(); i++)
+			load(i, thumbs.getThumbnail(i));
+	}
+	
+	/**
+	 * queues a single thumbnail to load. Does nothing if it's already loaded or queued
+	 * @param index index to tell the listener when it's finished
+	 * @param thumb thumbnail to load
+	 */
+	public synchronized void load(int index, Thumbnail thumb)
+	{
+		if (thumb == null || thumb.isLoaded())
+			return;
+		
+		//forget about loads that are already done so the list doesn't grow forever
+		prunePending();
+		if (pending.containsKey(thumb))
+			return;
+		
+		final int loadGeneration = generation;
+		pending.put(thumb, workers.submit(new Runnable() {
+			@Override
+			public void run() {
+				//cancelled after being queued
+				if (!isCurrent(loadGeneration))
+					return;
+				
+				try
+				{
+					thumb.load();
+				} catch (RuntimeException e)
+				{
+					System.out.println("Thumbnail not loaded! " + thumb.getImagePath() + "\n" + e);
+					return;
+				}
+				
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (isCurrent(loadGeneration))
+							listener.notifyOfThumbnailLoaded(index, thumb);
+					}
+				});
+			}
+		}));
+	}
+	
+	/**
+	 * stops all queued loads that haven't started yet. Loads already running finish but don't notify the listener
+	 */
+	public synchronized void cancel()
+	{
+		generation++;
+		for (Future<?> f : pending.values())
+			f.cancel(false);
+		pending.clear();
+	}
+	
+	/**
+	 * whether any queued thumbnails have not finished loading
+	 * @return true if still loading
+	 */
+	public synchronized boolean isLoading()
+	{
+		prunePending();
+		return !pending.isEmpty();
+	}
+	
+	/**
+	 * removes finished loads from the pending list
+	 */
+	private synchronized void prunePending()
+	{
+		Iterator<Future<?>> it = pending.values().iterator();
+		while (it.hasNext())
+			if (it.next().isDone())
+				it.remove();
+	}
+	
+	/**
+	 * whether a load from the supplied generation should still notify
+	 * @param loadGeneration generation the load was queued in
+	 * @return true if there has been no cancel since the load was queued
+	 */
+	private synchronized boolean isCurrent(int loadGeneration)
+	{
+		return loadGeneration == generation;
+	}
+}
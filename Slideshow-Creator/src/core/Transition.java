@@ -12,6 +12,9 @@ package core;
 
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import javax.swing.JPanel;
 
@@ -24,61 +27,67 @@ public class Transition {
 	private TransitionType type;
 	public void setTransitionType(TransitionType t) {
 		type = t;
+		transition = createColemanTransition(t);
+	}
+	public TransitionType getTransitionType() {
+		return type;
+	}
+	
+	private double transitionLength;
+	public void setTransitionLength(double timeInSeconds) {
+		transitionLength = timeInSeconds;
+	}
+	public double getTransitionLength() {
+		return transitionLength;
+	}
+	
+	/** The actual transition implementation provided by Dr.Coleman */
+	private ColemanTransition transition;
+	
+	/**
+	 * createColemanTransition - makes the implementation that draws a type of transition
+	 * 
+	 * @param t - the type of transition
+	 * @return a new implementation of the type. An instant switch if the type is unknown
+	 */
+	public static ColemanTransition createColemanTransition(TransitionType t) {
 		if(t == TransitionType.NONE) {
-			transition = new ColemanTransition();
+			return new ColemanTransition();
 		}
 		else if(t == TransitionType.CROSS_DISSOLVE) {
-			transition = new Trans_CrossDissolve();
+			return new Trans_CrossDissolve();
 		}
 		else if(t == TransitionType.PUSH_DOWN) {
-			transition = new Trans_PushDown();
+			return new Trans_PushDown();
 		}
 		else if(t == TransitionType.PUSH_LEFT) {
-			transition = new Trans_PushLeft();
+			return new Trans_PushLeft();
 		}
 		else if(t == TransitionType.PUSH_RIGHT) {
-			transition = new Trans_PushRight();
+			return new Trans_PushRight();
 		}
 		else if(t == TransitionType.PUSH_UP) {
-			transition = new Trans_PushUp();
+			return new Trans_PushUp();
 		}
 		else if(t == TransitionType.WIPE_DOWN) {
-			transition = new Trans_WipeDown();
+			return new Trans_WipeDown();
 		}
 		else if(t == TransitionType.WIPE_LEFT) {
-			transition = new Trans_WipeLeft();
+			return new Trans_WipeLeft();
 		}
 		else if(t == TransitionType.WIPE_RIGHT) {
-			transition = new Trans_WipeRight();
+			return new Trans_WipeRight();
 		}
 		else if(t == TransitionType.WIPE_UP) {
-			transition = new Trans_WipeUp();
+			return new Trans_WipeUp();
 		}
 		else {
-			transition = new ColemanTransition();
+			return new ColemanTransition();
 		}
 	}
-	public TransitionType getTransitionType() {
-		return type;
-	}
 	
-	private double transitionLength;
-	public void setTransitionLength(double timeInSeconds) {
-		transitionLength = timeInSeconds;
-	}
-	public double getTransitionLength() {
-		return transitionLength;
-	}
-	
-	/** The actual transition implementation provided by Dr.Coleman */
-	private ColemanTransition transition;
-	
-	/** thread to run the transition on */
-	private Thread transitionThread;
-	
-	public Thread getTransitionThread() {
-		return transitionThread;
-	}
+	/** completes when the transition playing now finishes, null if it has never played */
+	private CompletableFuture<Void> playing;
 	
 	/**
 	 * Transition() - default constructor for Transition class
@@ -99,30 +108,56 @@ public class Transition {
 	 * @param display - the JPanel to display on
 	 * @param prevImg - the image transitioning from
 	 * @param nextImg - the image transitioning to
+	 * @return future that completes the moment the transition finishes. Already complete if it was skipped
 	 * 
 	 * @author austinvickers
 	 * @author Timothy Couch
 	 */
-	public void PlayTransition(JPanel display, Image prevImg, Image nextImg ) {
-		if (transitionLength > 0 && 
+	public CompletableFuture<Void> PlayTransition(JPanel display, Image prevImg, Image nextImg ) {
+		return PlayTransition(display, prevImg, nextImg, null, null);
+	}
+	
+	/**
+	 * PlayTransition() - Plays this transition on the specified JPanel, replaying its frames from the cache if they
+	 * were rendered before. If not, it's drawn as usual and then rendered into the cache for next time
+	 * 
+	 * @param display - the JPanel to display on
+	 * @param prevImg - the image transitioning from
+	 * @param nextImg - the image transitioning to
+	 * @param frameCache - cache of rendered transitions, or null to always draw it
+	 * @param key - what this transition is called in the cache
+	 * @return future that completes the moment the transition finishes. Already complete if it was skipped
+	 */
+	public synchronized CompletableFuture<Void> PlayTransition(JPanel display, Image prevImg, Image nextImg, TransitionFrameCache frameCache, TransitionFrameCache.Key key) {
+		if (transitionLength > 0 && prevImg != null && nextImg != null &&
 				prevImg.getWidth(null) > 0 && prevImg.getHeight(null) > 0 && 
 				nextImg.getWidth(null) > 0 && nextImg.getHeight(null) > 0 && 
 				display.getWidth() > 0 && display.getHeight() > 0)
 		{
 			if (!isRunning())
 			{
-				transitionThread = new Thread() {
+				playing = PlaybackScheduler.singleton.playTransition(new Runnable() {
 					@Override
 					public void run()
 					{
-						transition.DrawImageTransition(display, (BufferedImage)prevImg, (BufferedImage)nextImg, transitionLength);
+						TransitionFrameCache.Frames frames = frameCache != null ? frameCache.get(key) : null;
+						if (frames != null)
+							transition.PlayRenderedFrames(display, frames, transitionLength);
+						else
+						{
+							transition.DrawImageTransition(display, (BufferedImage)prevImg, (BufferedImage)nextImg, transitionLength);
+							if (frameCache != null && !transition.isAborting())
+								frameCache.render(key, (BufferedImage)prevImg, (BufferedImage)nextImg);
+						}
 					};
-				};
-				transitionThread.start();
+				});
 			}
 			else System.out.println("Transition already running! Not playing transition!");
+			return playing;
 		}
-		else System.out.println("Transition skipped! Length 0, container size 0, or either image size 0.");
+		
+		System.out.println("Transition skipped! Length 0, container size 0, or either image missing or size 0.");
+		return CompletableFuture.completedFuture(null);
 	}
 	
 	/**
@@ -130,9 +165,9 @@ public class Transition {
 	 * 
 	 * @author Timothy Couch
 	 */
-	public boolean isRunning()
+	public synchronized boolean isRunning()
 	{
-		return transitionThread != null && transitionThread.isAlive();
+		return playing != null && !playing.isDone();
 	}
 	
 	/**
@@ -142,14 +177,20 @@ public class Transition {
 	 */
 	public void stopTransition()
 	{
-		if (isRunning())
+		CompletableFuture<Void> stopping;
+		synchronized (this)
+		{
+			stopping = playing;
+		}
+		
+		if (stopping != null && !stopping.isDone())
 		{
 			try {
 				System.out.println("Joining");
 				transition.abort();
-				transitionThread.join();
+				stopping.join();
 				System.out.println("Done waiting");
-			} catch (InterruptedException e) {
+			} catch (CancellationException | CompletionException e) {
 				e.printStackTrace();
 			}
 		}
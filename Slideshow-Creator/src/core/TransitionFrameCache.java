@@ -0,0 +1,549 @@
+/**
+ * TransitionFrameCache.java
+ * Keeps every frame of transitions that have already played so looping slideshows can replay them without drawing
+ * them again
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import pkgImageTransitions.ColemanTransition;
+import pkgImageTransitions.FrameClock;
+
+public class TransitionFrameCache
+{
+	/** frames of one transition, ready to copy to the screen */
+	public interface Frames {
+		int getFrameCount();
+		void drawFrame(int index, Graphics2D g);
+		void release();
+	}
+	
+	/** everything that changes how a transition's frames look */
+	public static final class Key
+	{
+		private final String slideA;
+		private final String slideB;
+		private final TransitionType type;
+		private final long durationMillis;
+		private final int width;
+		private final int height;
+		
+		/**
+		 * Key - identifies the frames of one transition
+		 * @param slideA slide transitioning from
+		 * @param slideB slide transitioning to
+		 * @param type type of transition
+		 * @param seconds how long the transition takes
+		 * @param width width of the panel it plays on
+		 * @param height height of the panel it plays on
+		 */
+		public Key(Thumbnail slideA, Thumbnail slideB, TransitionType type, double seconds, int width, int height)
+		{
+			this.slideA = slideA.getImagePath();
+			this.slideB = slideB.getImagePath();
+			this.type = type;
+			this.durationMillis = Math.round(seconds * 1000);
+			this.width = width;
+			this.height = height;
+		}
+		
+		public double getSeconds() {
+			return durationMillis / 1000.0;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return slideA.equals(k.slideA) && slideB.equals(k.slideB) && type == k.type && durationMillis == k.durationMillis
+					&& width == k.width && height == k.height;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			int hash = slideA.hashCode();
+			hash = hash * 31 + slideB.hashCode();
+			hash = hash * 31 + type.hashCode();
+			hash = hash * 31 + Long.hashCode(durationMillis);
+			hash = hash * 31 + width;
+			return hash * 31 + height;
+		}
+	}
+	
+	/** file extension of frames spilled to disk */
+	private static final String spillExtension = ".frames";
+	
+	/** most bytes of frames to keep in memory */
+	private final long maxMemoryBytes;
+	
+	/** directory frames pushed out of memory are written to, null to just drop them */
+	private final File spillDir;
+	
+	/** most bytes of frames to keep in the spill directory */
+	private final long maxSpillBytes;
+	
+	/** frames in memory, least recently used first */
+	private final LinkedHashMap<Key, MemoryFrames> inMemory = new LinkedHashMap<Key, MemoryFrames>(16, 0.75f, true);
+	
+	/** frames on disk, least recently used first */
+	private final LinkedHashMap<Key, File> spilled = new LinkedHashMap<Key, File>(16, 0.75f, true);
+	
+	/** transitions being rendered or spilled now */
+	private final HashMap<Key, Future<?>> pending = new HashMap<Key, Future<?>>();
+	
+	/** transitions that can't be cached, like ones too big to fit */
+	private final HashSet<Key> uncacheable = new HashSet<Key>();
+	
+	private long memoryBytes = 0;
+	private long spillBytes = 0;
+	
+	/** bytes every transition in the loop takes at the size it's playing at */
+	private long loopBytes = 0;
+	
+	/** number of files spilled, used to name them */
+	private int spillCount = 0;
+	
+	/** thread that renders and spills frames. Only one, at low priority, so it stays out of the way of playback */
+	private final ExecutorService worker;
+	
+	/** number of lookups that found frames */
+	private final AtomicInteger hits = new AtomicInteger();
+	
+	public int getHits() {
+		return hits.get();
+	}
+	
+	/** number of lookups that didn't find frames */
+	private final AtomicInteger misses = new AtomicInteger();
+	
+	public int getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * TransitionFrameCache - creates an empty cache
+	 * @param maxMemoryBytes most bytes of frames to keep in memory
+	 * @param spillDir directory to write frames pushed out of memory to, or null to keep frames in memory only. Any
+	 * frames left in it from before are deleted
+	 * @param maxSpillBytes most bytes of frames to keep in the spill directory
+	 */
+	public TransitionFrameCache(long maxMemoryBytes, File spillDir, long maxSpillBytes)
+	{
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.maxSpillBytes = maxSpillBytes;
+		if (spillDir != null && maxSpillBytes > 0 && (spillDir.isDirectory() || spillDir.mkdirs()))
+		{
+			this.spillDir = spillDir;
+			deleteSpillFiles();
+		}
+		else
+		{
+			if (spillDir != null)
+				System.out.println("Transition frames won't spill to disk. Could not use " + spillDir.getAbsolutePath());
+			this.spillDir = null;
+		}
+		
+		worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Transition Frame Renderer");
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * get - looks up the frames of a transition
+	 * @param key transition to look up
+	 * @return frames of the transition, or null if they haven't been rendered. Release them once done drawing
+	 */
+	public synchronized Frames get(Key key)
+	{
+		Frames frames = inMemory.get(key);
+		if (frames == null)
+		{
+			File file = spilled.get(key);
+			if (file != null)
+			{
+				if (file.isFile())
+					frames = new DiskFrames(file, key.width, key.height);
+				//deleted out from under the cache
+				else spilled.remove(key);
+			}
+		}
+		
+		if (frames != null)
+			hits.incrementAndGet();
+		else misses.incrementAndGet();
+		return frames;
+	}
+	
+	/**
+	 * setLoopBytes - tells the cache how big the whole loop is. Nothing is rendered while the loop can't all be kept,
+	 * since each transition would be pushed out before it came round again
+	 * @param loopBytes bytes every transition in the loop takes, from getTransitionBytes
+	 */
+	public synchronized void setLoopBytes(long loopBytes)
+	{
+		this.loopBytes = loopBytes;
+	}
+	
+	/**
+	 * getTransitionBytes - bytes the frames of one transition take once rendered
+	 * @param type type of transition
+	 * @param seconds how long the transition takes
+	 * @param width width of the panel it plays on
+	 * @param height height of the panel it plays on
+	 * @return bytes of every frame, 0 if it has nothing to cache
+	 */
+	public static long getTransitionBytes(TransitionType type, double seconds, int width, int height)
+	{
+		if (type == TransitionType.NONE || seconds <= 0)
+			return 0;
+		return (new FrameClock(seconds, FrameClock.defaultFps, false).getStepCount() + 1) * (long) width * height * 4;
+	}
+	
+	/**
+	 * render - renders every frame of a transition in the background so it can be replayed next time. Does nothing if
+	 * it's already cached, being rendered, or has nothing to cache
+	 * @param key transition to render
+	 * @param imageA slide transitioning from at the panel size
+	 * @param imageB slide transitioning to at the panel size
+	 */
+	public synchronized void render(Key key, BufferedImage imageA, BufferedImage imageB)
+	{
+		if (key.type == TransitionType.NONE || key.durationMillis <= 0 || uncacheable.contains(key)
+				|| inMemory.containsKey(key) || spilled.containsKey(key) || pending.containsKey(key))
+			return;
+		
+		if (imageA.getWidth() != key.width || imageA.getHeight() != key.height
+				|| imageB.getWidth() != key.width || imageB.getHeight() != key.height)
+			return;
+		
+		//rendering a loop that doesn't fit only evicts each transition before it's replayed
+		if (loopBytes > maxMemoryBytes + (spillDir != null ? maxSpillBytes : 0))
+			return;
+		
+		//skip transitions that couldn't be kept anywhere
+		long bytes = getTransitionBytes(key.type, key.getSeconds(), key.width, key.height);
+		if (bytes > maxMemoryBytes && (spillDir == null || bytes > maxSpillBytes))
+		{
+			System.out.println("Transition too big to cache: " + (bytes >> 20) + "MB");
+			uncacheable.add(key);
+			return;
+		}
+		
+		pending.put(key, worker.submit(new Runnable() {
+			@Override
+			public void run() {
+				BufferedImage[] frames = renderFrames(key, imageA, imageB);
+				if (frames != null)
+					store(key, frames);
+				
+				synchronized (TransitionFrameCache.this)
+				{
+					pending.remove(key);
+				}
+			}
+		}));
+	}
+	
+	/**
+	 * forgets every transition, stops rendering, and deletes any spilled frames
+	 */
+	public synchronized void clear()
+	{
+		for (Future<?> f : pending.values())
+			f.cancel(true);
+		pending.clear();
+		inMemory.clear();
+		memoryBytes = 0;
+		spilled.clear();
+		spillBytes = 0;
+		uncacheable.clear();
+		if (spillDir != null)
+			deleteSpillFiles();
+	}
+	
+	/**
+	 * renderFrames - draws every frame of the transition, one for each step of a frame clock the same length as the
+	 * transition. Stops early once the transition says the rest would look the same
+	 * @param key transition to render
+	 * @param imageA slide transitioning from
+	 * @param imageB slide transitioning to
+	 * @return frames, or null if interrupted
+	 */
+	private static BufferedImage[] renderFrames(Key key, BufferedImage imageA, BufferedImage imageB)
+	{
+		//a transition of its own since transitions reuse buffers between frames
+		ColemanTransition transition = Transition.createColemanTransition(key.type);
+		FrameClock clock = new FrameClock(key.getSeconds(), FrameClock.defaultFps, false);
+		List<BufferedImage> frames = new ArrayList<BufferedImage>(clock.getStepCount() + 1);
+		try
+		{
+			float progress;
+			boolean more = true;
+			while (more && (progress = clock.nextFrame()) >= 0)
+			{
+				if (Thread.currentThread().isInterrupted())
+					return null;
+				
+				BufferedImage frame = ImageScaler.createCompatibleImage(key.width, key.height, false);
+				Graphics2D g = frame.createGraphics();
+				try
+				{
+					more = transition.renderFrame(progress, g, imageA, imageB, key.width, key.height);
+				} finally
+				{
+					g.dispose();
+				}
+				frames.add(frame);
+			}
+		} catch (InterruptedException e)
+		{
+			return null;
+		}
+		return frames.toArray(new BufferedImage[frames.size()]);
+	}
+	
+	/**
+	 * store - keeps the rendered frames in memory, pushing the least recently used transitions out to disk or dropping
+	 * them to make room
+	 * @param key transition rendered
+	 * @param frames its frames
+	 */
+	private void store(Key key, BufferedImage[] frames)
+	{
+		List<Key> evictedKeys = new ArrayList<Key>();
+		List<MemoryFrames> evicted = new ArrayList<MemoryFrames>();
+		synchronized (this)
+		{
+			//cleared while rendering
+			if (!pending.containsKey(key))
+				return;
+			
+			MemoryFrames stored = new MemoryFrames(frames, getFrameBytes(key));
+			inMemory.put(key, stored);
+			memoryBytes += stored.bytes;
+			
+			Iterator<Map.Entry<Key, MemoryFrames>> it = inMemory.entrySet().iterator();
+			while (memoryBytes > maxMemoryBytes && it.hasNext())
+			{
+				Map.Entry<Key, MemoryFrames> oldest = it.next();
+				it.remove();
+				memoryBytes -= oldest.getValue().bytes;
+				evictedKeys.add(oldest.getKey());
+				evicted.add(oldest.getValue());
+			}
+		}
+		
+		if (spillDir != null)
+			for (int i = 0; i < evicted.size(); i++)
+				spill(evictedKeys.get(i), evicted.get(i));
+	}
+	
+	/**
+	 * spill - writes frames pushed out of memory to the spill directory, deleting the least recently used spilled
+	 * frames if there isn't room
+	 * @param key transition the frames are for
+	 * @param frames frames to write
+	 */
+	private void spill(Key key, MemoryFrames frames)
+	{
+		File file;
+		synchronized (this)
+		{
+			if (frames.bytes > maxSpillBytes || spilled.containsKey(key))
+				return;
+			file = new File(spillDir, "transition" + (spillCount++) + spillExtension);
+		}
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			FileChannel channel = raf.getChannel();
+			int width = key.width;
+			int height = key.height;
+			int[] row = new int[width];
+			ByteBuffer buffer = ByteBuffer.allocateDirect(width * 4);
+			IntBuffer ints = buffer.asIntBuffer();
+			for (BufferedImage frame : frames.frames)
+				for (int y = 0; y < height; y++)
+				{
+					frame.getRGB(0, y, width, 1, row, 0, width);
+					ints.clear();
+					ints.put(row);
+					buffer.clear();
+					while (buffer.hasRemaining())
+						channel.write(buffer);
+				}
+		} catch (IOException e)
+		{
+			System.out.println("Could not spill transition frames to " + file.getAbsolutePath() + "\n" + e);
+			file.delete();
+			return;
+		}
+		
+		synchronized (this)
+		{
+			//cleared while writing
+			if (!file.isFile())
+				return;
+			
+			spilled.put(key, file);
+			spillBytes += frames.bytes;
+			Iterator<Key> it = spilled.keySet().iterator();
+			while (spillBytes > maxSpillBytes && it.hasNext())
+			{
+				Key oldest = it.next();
+				File oldFile = spilled.get(oldest);
+				spillBytes -= oldFile.length();
+				it.remove();
+				oldFile.delete();
+			}
+		}
+	}
+	
+	/**
+	 * deletes every spilled frames file in the spill directory
+	 */
+	private void deleteSpillFiles()
+	{
+		File[] files = spillDir.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(spillExtension);
+			}
+		});
+		if (files != null)
+			for (File f : files)
+				f.delete();
+	}
+	
+	/**
+	 * getFrameBytes - bytes one frame of the transition takes
+	 * @param key transition
+	 * @return 4 bytes for every pixel
+	 */
+	private static long getFrameBytes(Key key)
+	{
+		return (long) key.width * key.height * 4;
+	}
+	
+	/** frames kept in memory as images that can be copied straight to the screen */
+	private static class MemoryFrames implements Frames
+	{
+		final BufferedImage[] frames;
+		final long bytes;
+		
+		MemoryFrames(BufferedImage[] frames, long frameBytes)
+		{
+			this.frames = frames;
+			this.bytes = frames.length * frameBytes;
+		}
+		
+		@Override
+		public int getFrameCount() {
+			return frames.length;
+		}
+		
+		@Override
+		public void drawFrame(int index, Graphics2D g) {
+			g.drawImage(frames[index], 0, 0, null);
+		}
+		
+		@Override
+		public void release() {
+		}
+	}
+	
+	/** frames read one at a time from a spill file into a single reused image */
+	private static class DiskFrames implements Frames
+	{
+		private final File file;
+		private final int frameCount;
+		private final long frameBytes;
+		private final BufferedImage frame;
+		private final ByteBuffer buffer;
+		private RandomAccessFile raf;
+		
+		DiskFrames(File file, int width, int height)
+		{
+			this.file = file;
+			frameBytes = (long) width * height * 4;
+			frameCount = (int) (file.length() / frameBytes);
+			frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			buffer = ByteBuffer.allocateDirect((int) frameBytes);
+		}
+		
+		@Override
+		public int getFrameCount() {
+			return frameCount;
+		}
+		
+		@Override
+		public void drawFrame(int index, Graphics2D g) {
+			try
+			{
+				if (raf == null)
+					raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel();
+				buffer.clear();
+				long position = index * frameBytes;
+				while (buffer.hasRemaining())
+					if (channel.read(buffer, position + buffer.position()) < 0)
+						throw new IOException("frame " + index + " is cut off");
+				buffer.flip();
+				buffer.asIntBuffer().get(((DataBufferInt) frame.getRaster().getDataBuffer()).getData());
+			} catch (IOException e)
+			{
+				System.out.println("Could not read transition frame from " + file.getAbsolutePath() + "\n" + e);
+			}
+			g.drawImage(frame, 0, 0, null);
+		}
+		
+		@Override
+		public void release() {
+			if (raf != null)
+			{
+				try
+				{
+					raf.close();
+				} catch (IOException e)
+				{
+					System.out.println("Could not close " + file.getAbsolutePath());
+				}
+				raf = null;
+			}
+		}
+	}
+}
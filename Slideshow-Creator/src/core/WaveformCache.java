@@ -0,0 +1,187 @@
+/**
+ * WaveformCache.java
+ * Keeps the waveform peaks of audio files in memory and on disk beside the thumbnail cache, extracting them on a
+ * background thread the first time a file is shown so the arrange scene can draw its waveform without waiting
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+public class WaveformCache
+{
+	/** the one shared cache, in a folder next to the thumbnail cache */
+	public static final WaveformCache singleton = new WaveformCache(
+			new File(ThumbnailCache.singleton.getCacheDir().getParentFile(), "waveforms"),
+			Long.getLong("slider.waveformCacheBytes", 64L * 1024 * 1024));
+	
+	/** marks the start of every entry so stale or foreign files are ignored */
+	private static final int entryMagic = 0x534C5731;//"SLW1"
+	
+	/** file extension of cache entries */
+	private static final String entryExtension = ".peaks";
+	
+	/** most files' peaks to keep in memory */
+	private static final int memoryEntries = 64;
+	
+	/** entries on disk. Peaks are still extracted and kept in memory if the directory isn't usable */
+	private final DiskEntryCache disk;
+	
+	/** peaks in memory by file key, least recently used first */
+	private final LinkedHashMap<String, WaveformPeaks> peaksByKey;
+	
+	/** who to tell about files being loaded now, by file key */
+	private final Map<String, List<WaveformLoadListener>> pending = new HashMap<String, List<WaveformLoadListener>>();
+	
+	/** keys of files that couldn't be read, so they aren't tried again every time they're shown */
+	private final Set<String> failed = new HashSet<String>();
+	
+	/** thread that reads and extracts peaks, one file at a time */
+	private final ExecutorService worker;
+	
+	/**
+	 * WaveformCache - creates a cache in the supplied directory
+	 * @param cacheDir directory to store peaks in. Created if it doesn't exist
+	 * @param maxBytes most bytes to keep on disk before evicting the least recently used entries
+	 */
+	public WaveformCache(File cacheDir, long maxBytes)
+	{
+		disk = new DiskEntryCache("Waveform", cacheDir, maxBytes, entryMagic, entryExtension);
+		
+		//access order so the eldest is the least recently used
+		peaksByKey = new LinkedHashMap<String, WaveformPeaks>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, WaveformPeaks> eldest) {
+				return size() > memoryEntries;
+			}
+		};
+		worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Waveform Extractor");
+				//don't keep the program open just for waveforms
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY - 1);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * get - gets an audio file's peaks if they're in memory, otherwise queues reading them from disk or extracting them
+	 * @param audioFile the audio file
+	 * @param listener who to notify on the Swing event thread once they're ready, if they aren't now
+	 * @return the peaks, or null if they're being loaded or the file can't be read
+	 */
+	public synchronized WaveformPeaks get(File audioFile, WaveformLoadListener listener)
+	{
+		String key = DiskEntryCache.getKey(audioFile);
+		WaveformPeaks peaks = peaksByKey.get(key);
+		if (peaks != null || failed.contains(key))
+			return peaks;
+		
+		List<WaveformLoadListener> listeners = pending.get(key);
+		if (listeners != null)
+		{
+			listeners.add(listener);
+			return null;
+		}
+		listeners = new ArrayList<WaveformLoadListener>();
+		listeners.add(listener);
+		pending.put(key, listeners);
+		
+		worker.submit(new Runnable() {
+			@Override
+			public void run() {
+				load(key, audioFile);
+			}
+		});
+		return null;
+	}
+	
+	/**
+	 * reads a file's peaks from disk, or extracts and stores them if they aren't there, then notifies whoever asked
+	 */
+	private void load(String key, File audioFile)
+	{
+		WaveformPeaks peaks = readEntry(key);
+		if (peaks == null)
+		{
+			try
+			{
+				long start = System.nanoTime();
+				peaks = WaveformPeaks.extract(audioFile);
+				System.out.println("Extracted waveform of " + audioFile.getName() + " in " + (System.nanoTime() - start) / 1000000 + "ms");
+				writeEntry(key, peaks);
+			} catch (Exception e)
+			{
+				System.out.println("Waveform not extracted! " + audioFile.getAbsolutePath() + "\n" + e);
+			}
+		}
+		
+		final WaveformPeaks loaded = peaks;
+		final List<WaveformLoadListener> listeners;
+		synchronized (this)
+		{
+			if (loaded != null)
+				peaksByKey.put(key, loaded);
+			else failed.add(key);
+			listeners = pending.remove(key);
+		}
+		if (loaded == null)
+			return;
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				for (WaveformLoadListener listener : listeners)
+					listener.notifyOfWaveformLoaded(audioFile, loaded);
+			}
+		});
+	}
+	
+	/**
+	 * reads an entry from disk, or returns null if there isn't a good one
+	 */
+	private WaveformPeaks readEntry(String key)
+	{
+		return disk.read(key, new DiskEntryCache.EntryReader<WaveformPeaks>() {
+			@Override
+			public WaveformPeaks read(DataInputStream in, long entryBytes) throws IOException {
+				return WaveformPeaks.read(in);
+			}
+		});
+	}
+	
+	/**
+	 * writes an entry to disk, then evicts old entries if the cache is too big
+	 */
+	private void writeEntry(String key, WaveformPeaks peaks)
+	{
+		disk.write(key, new DiskEntryCache.EntryWriter() {
+			@Override
+			public void write(DataOutputStream out) throws IOException {
+				peaks.write(out);
+			}
+		});
+	}
+}
@@ -0,0 +1,19 @@
+/**
+ * WaveformLoadListener.java
+ * Used by WaveformCache so that it knows who to tell when an audio file's waveform peaks are ready
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.File;
+
+public interface WaveformLoadListener {
+	/**
+	 * called on the Swing event thread once the peaks of an audio file have been read from the cache or extracted
+	 * @param audioFile the audio file the peaks are of
+	 * @param peaks the file's peaks
+	 */
+	void notifyOfWaveformLoaded(File audioFile, WaveformPeaks peaks);
+}
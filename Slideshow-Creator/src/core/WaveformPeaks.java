@@ -0,0 +1,284 @@
+/**
+ * WaveformPeaks.java
+ * Overview of an audio file's waveform as the lowest and highest sample in each short block, with coarser levels each
+ * merging pairs of blocks from the one below, so a waveform can be drawn at any width without reading the file again
+ * 
+ * Slideshow Creator
+ */
+
+package core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+public class WaveformPeaks
+{
+	/** frames each peak of the finest level covers */
+	public static final int baseFrames = 256;
+	
+	/** frames read from the file at once */
+	private static final int readFrames = 16 * 1024;
+	
+	/** frames per second of the file */
+	private final float frameRate;
+	
+	/** frames in the file */
+	private final long frameLength;
+	
+	/**
+	 * levels[level] holds a min and max byte for each peak, one after the other. Level 0 peaks cover baseFrames frames
+	 * and each level after covers twice as many as the one before, down to a single peak
+	 */
+	private final byte[][] levels;
+	
+	/**
+	 * WaveformPeaks - creates peaks from levels already made
+	 * @param frameRate frames per second of the file
+	 * @param frameLength frames in the file
+	 * @param levels min and max pairs for each level, finest first
+	 */
+	private WaveformPeaks(float frameRate, long frameLength, byte[][] levels)
+	{
+		this.frameRate = frameRate;
+		this.frameLength = frameLength;
+		this.levels = levels;
+	}
+	
+	/**
+	 * extract - reads through an audio file once, keeping only the lowest and highest sample of each block. Memory used
+	 * besides the peaks themselves is one small read buffer, however long the file is
+	 * @param file sampled audio file
+	 * @return peaks of the file, with every level made
+	 * @throws UnsupportedAudioFileException if it isn't sampled audio Java Sound can decode
+	 * @throws IOException if it can't be read
+	 */
+	public static WaveformPeaks extract(File file) throws UnsupportedAudioFileException, IOException
+	{
+		AudioInputStream stream = AudioStream.openPcm(file);
+		try
+		{
+			AudioFormat format = stream.getFormat();
+			int channels = format.getChannels();
+			int frameSize = format.getFrameSize();
+			int sampleBytes = frameSize / channels;
+			boolean bigEndian = format.isBigEndian();
+			boolean unsigned = format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED;
+			//only the top two bytes of each sample matter at this resolution
+			int highOffset = bigEndian ? 0 : sampleBytes - 1;
+			int lowOffset = bigEndian ? 1 : sampleBytes - 2;
+			
+			long expectedFrames = stream.getFrameLength();
+			byte[] peaks = new byte[expectedFrames != AudioSystem.NOT_SPECIFIED ? 2 * (int) ((expectedFrames + baseFrames - 1) / baseFrames) : 2 * 1024];
+			int peakCount = 0;
+			int framesInPeak = 0;
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			long frames = 0;
+			
+			byte[] buffer = new byte[readFrames * frameSize];
+			int read;
+			while ((read = stream.read(buffer)) > 0)
+			{
+				for (int frame = 0; frame + frameSize <= read; frame += frameSize)
+				{
+					for (int sample = frame; sample < frame + frameSize; sample += sampleBytes)
+					{
+						int value = buffer[sample + highOffset] << 8;
+						if (sampleBytes > 1)
+							value |= buffer[sample + lowOffset] & 0xff;
+						if (unsigned)
+							value = (short) (value ^ 0x8000);
+						if (value < min)
+							min = value;
+						if (value > max)
+							max = value;
+					}
+					
+					if (++framesInPeak == baseFrames)
+					{
+						peaks = storePeak(peaks, peakCount++, min, max);
+						framesInPeak = 0;
+						min = Integer.MAX_VALUE;
+						max = Integer.MIN_VALUE;
+					}
+				}
+				frames += read / frameSize;
+			}
+			if (framesInPeak > 0)
+				peaks = storePeak(peaks, peakCount++, min, max);
+			
+			return new WaveformPeaks(format.getFrameRate(), frames, buildLevels(Arrays.copyOf(peaks, peakCount * 2)));
+		} finally
+		{
+			stream.close();
+		}
+	}
+	
+	/**
+	 * getFrameRate - frames per second of the file
+	 * @return frame rate
+	 */
+	public float getFrameRate()
+	{
+		return frameRate;
+	}
+	
+	/**
+	 * getLength - how long the file plays
+	 * @return seconds
+	 */
+	public float getLength()
+	{
+		return frameLength / frameRate;
+	}
+	
+	/**
+	 * getLevelCount - number of levels, the finest being 0
+	 * @return number of levels
+	 */
+	public int getLevelCount()
+	{
+		return levels.length;
+	}
+	
+	/**
+	 * getPeaks - fills in the lowest and highest sample under each pixel of a waveform drawn at the scale given. Uses the
+	 * coarsest level that's still finer than a pixel, so it's quick at any zoom
+	 * @param startSecond time in the file at the left edge of the first pixel
+	 * @param secondsPerPixel time each pixel covers
+	 * @param mins gets the lowest sample under each pixel, -128 to 127
+	 * @param maxes gets the highest sample under each pixel, -128 to 127
+	 * @return number of pixels filled in, fewer than the arrays hold if the file ends first
+	 */
+	public int getPeaks(double startSecond, double secondsPerPixel, byte[] mins, byte[] maxes)
+	{
+		if (levels.length == 0 || secondsPerPixel <= 0)
+			return 0;
+		
+		double framesPerPixel = secondsPerPixel * frameRate;
+		int level = 0;
+		while (level + 1 < levels.length && ((long) baseFrames << (level + 1)) <= framesPerPixel)
+			level++;
+		byte[] peaks = levels[level];
+		int peakCount = peaks.length / 2;
+		double framesPerPeak = (double) ((long) baseFrames << level);
+		
+		int pixels = Math.min(mins.length, maxes.length);
+		for (int pixel = 0; pixel < pixels; pixel++)
+		{
+			double startFrame = startSecond * frameRate + pixel * framesPerPixel;
+			if (startFrame >= frameLength)
+				return pixel;
+			int first = (int) (startFrame / framesPerPeak);
+			//every pixel gets at least the peak it starts in, even zoomed in past the finest level
+			int last = Math.max(first, (int) Math.ceil((startFrame + framesPerPixel) / framesPerPeak) - 1);
+			last = Math.min(last, peakCount - 1);
+			
+			byte min = Byte.MAX_VALUE;
+			byte max = Byte.MIN_VALUE;
+			for (int peak = first; peak <= last; peak++)
+			{
+				if (peaks[peak * 2] < min)
+					min = peaks[peak * 2];
+				if (peaks[peak * 2 + 1] > max)
+					max = peaks[peak * 2 + 1];
+			}
+			mins[pixel] = min;
+			maxes[pixel] = max;
+		}
+		return pixels;
+	}
+	
+	/**
+	 * write - writes the peaks, every level included, so they can be read back without making the levels again
+	 * @param out stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public void write(DataOutputStream out) throws IOException
+	{
+		out.writeFloat(frameRate);
+		out.writeLong(frameLength);
+		out.writeInt(levels.length);
+		for (byte[] level : levels)
+		{
+			out.writeInt(level.length);
+			out.write(level);
+		}
+	}
+	
+	/**
+	 * read - reads peaks that were written with write
+	 * @param in stream to read from
+	 * @return the peaks
+	 * @throws IOException if reading fails or the data doesn't make sense
+	 */
+	public static WaveformPeaks read(DataInputStream in) throws IOException
+	{
+		float frameRate = in.readFloat();
+		long frameLength = in.readLong();
+		int levelCount = in.readInt();
+		if (frameRate <= 0 || frameLength < 0 || levelCount < 0 || levelCount > 64)
+			throw new IOException("not waveform peaks");
+		
+		byte[][] levels = new byte[levelCount][];
+		for (int i = 0; i < levelCount; i++)
+		{
+			int length = in.readInt();
+			if (length < 0 || length % 2 != 0 || (i > 0 && length > levels[i - 1].length))
+				throw new IOException("corrupt waveform level");
+			levels[i] = new byte[length];
+			in.readFully(levels[i]);
+		}
+		return new WaveformPeaks(frameRate, frameLength, levels);
+	}
+	
+	/**
+	 * stores a block's min and max as the peak at index, growing the array if it's full
+	 */
+	private static byte[] storePeak(byte[] peaks, int index, int min, int max)
+	{
+		if (index * 2 + 1 >= peaks.length)
+			peaks = Arrays.copyOf(peaks, peaks.length * 2);
+		peaks[index * 2] = (byte) (min >> 8);
+		peaks[index * 2 + 1] = (byte) (max >> 8);
+		return peaks;
+	}
+	
+	/**
+	 * makes every coarser level from the finest, each merging pairs of peaks from the one before
+	 */
+	private static byte[][] buildLevels(byte[] finest)
+	{
+		if (finest.length == 0)
+			return new byte[0][];
+		int levelCount = 1;
+		for (int peaks = finest.length / 2; peaks > 1; peaks = (peaks + 1) / 2)
+			levelCount++;
+		
+		byte[][] levels = new byte[levelCount][];
+		levels[0] = finest;
+		for (int level = 1; level < levelCount; level++)
+		{
+			byte[] below = levels[level - 1];
+			int belowCount = below.length / 2;
+			byte[] merged = new byte[(belowCount + 1) / 2 * 2];
+			for (int peak = 0; peak < merged.length / 2; peak++)
+			{
+				int left = peak * 2;
+				int right = Math.min(left + 1, belowCount - 1);
+				merged[peak * 2] = (byte) Math.min(below[left * 2], below[right * 2]);
+				merged[peak * 2 + 1] = (byte) Math.max(below[left * 2 + 1], below[right * 2 + 1]);
+			}
+			levels[level] = merged;
+		}
+		return levels;
+	}
+}
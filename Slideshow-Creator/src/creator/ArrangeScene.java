@@ -23,7 +23,6 @@ import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
 
@@ -36,10 +35,9 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
-import javax.swing.JTextField;
-import javax.swing.JToggleButton;
 import javax.swing.border.Border;
-import javax.swing.border.LineBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import core.*;
@@ -52,8 +50,8 @@ public class ArrangeScene extends Scene{
 	/** Create image panel */
 	private JPanel imagePanel;
 	
-	/** Create timeline panel */
-	private JPanel timelinePanel;
+	/** Create timeline strip of slide and transition buttons */
+	private TimelineStrip timelineStrip;
 	
 	/** Selected thumbnail on the timeline */
 	private Thumbnail currentSlide;
@@ -274,11 +272,14 @@ public class ArrangeScene extends Scene{
 		    	timeline = SceneHandler.singleton.getTimeline();
 		    	//System.out.println(selectedThumbnail.getImagePath() + "remove");
 		    	int removeIndex = timeline.thumbnailsList.indexOf(currentSlide);
+		    	if (removeIndex < 0)
+		    		return;
 		    	timeline.removeSlide(removeIndex);
 		    	
-		    	// Remove components and repaint 
-		    	timelinePanel.removeAll();
-		    	PopulateTimeline(false);
+		    	// Take the slide off the strip and select the one that took its place
+		    	timelineStrip.removed(removeIndex);
+		    	selectSlide(Math.min(removeIndex, timeline.thumbnailsList.getSize() - 1));
+		    	audioPanel.removeAll();
 		    	PopulateAudio();
 		    	revalidate();
 		    	repaint();
@@ -297,13 +298,14 @@ public class ArrangeScene extends Scene{
 		    	// Swap selected thumbnail forward
 		    	Timeline timeline = SceneHandler.singleton.getTimeline();
 		    	if(currentSlide != null) {
-			    	timeline.thumbnailsList.swapForward(currentSlide);
+			    	int newIndex = timeline.thumbnailsList.swapForward(currentSlide);
+			    	if (newIndex != -1)
+			    	{
+			    		// Only the two swapped slides change on the strip
+			    		timelineStrip.swapped(newIndex - 1, newIndex);
+			    		timelineStrip.scrollToSlide(newIndex);
+			    	}
 		    	}
-		    	
-		    	// Remove components and repaint 
-		    	timelinePanel.removeAll();
-		    	PopulateTimeline(true);
-		    	revalidate();
 		    }
 		});
 		
@@ -319,13 +321,14 @@ public class ArrangeScene extends Scene{
 		    	// Swap selected thumbnail forward
 		    	Timeline timeline = SceneHandler.singleton.getTimeline();
 		    	if(currentSlide != null) {
-			    	timeline.thumbnailsList.swapBackward(currentSlide);
+			    	int newIndex = timeline.thumbnailsList.swapBackward(currentSlide);
+			    	if (newIndex != -1)
+			    	{
+			    		// Only the two swapped slides change on the strip
+			    		timelineStrip.swapped(newIndex + 1, newIndex);
+			    		timelineStrip.scrollToSlide(newIndex);
+			    	}
 		    	}
-		    	
-		    	// Remove components and repaint 
-		    	timelinePanel.removeAll();
-		    	PopulateTimeline(true);
-		    	revalidate();
 		    }
 		});
 		
@@ -462,9 +465,34 @@ public class ArrangeScene extends Scene{
 		timelinePanelConstraints = (GridBagConstraints) c.clone();
 		audioConstraints = new GridBagConstraints();
 		
-		// Set up blank timeline panel
+		// Set up blank timeline strip. It's kept for the life of the scene and changed in place
+		timelineStrip = new TimelineStrip(new TimelineStrip.Listener() {
+			@Override
+			public void slideClicked(int index) {
+				selectSlide(index);
+			}
+			
+			@Override
+			public void transitionClicked(int index, JButton button) {
+				JFrame parent = SceneHandler.singleton.getMainFrame();
+		    	Coord2 point = new Coord2(
+		    			parent.getX() + parent.getSize().width/2,
+		    			parent.getY() + parent.getSize().height/2
+		    			);
+		    	
+				TransitionPane p = new TransitionPane(
+						parent, 
+						"Transition Settings", 
+						point, 
+						new Dimension(450, 395),
+						index
+						);
+				parent.setEnabled(false);
+				//keep it highlighted while its settings are open
+				button.setIcon(button.getRolloverIcon());
+			}
+		});
 		SetupTimelinePanel(false);
-		timelinePanelContainer.add(timelinePanel, timelinePanelConstraints);
 		
 		//Set up audio timeline
 		PopulateAudio();
@@ -474,6 +502,13 @@ public class ArrangeScene extends Scene{
 		timelineScroller.setBorder(BorderFactory.createEmptyBorder());
 		timelineScroller.setPreferredSize(new Dimension(200, 250));
 		timelineScroller.getHorizontalScrollBar().setUnitIncrement(25);
+		timelineScroller.getViewport().addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				// Move the slide buttons to whatever scrolled into view
+				timelineStrip.updateVisibleSlots();
+			}
+		});
 		
 		/*
 		///////////////////////
@@ -548,10 +583,7 @@ public class ArrangeScene extends Scene{
      */
 	public void SetupTimelinePanel(boolean revalidate)
 	{		
-		// Create timeline panel with new images
-		timelinePanel = new JPanel();
-		timelinePanel.setLayout(new GridBagLayout());
-		timelinePanel.setBackground(SliderColor.light_gray);
+		// Point the strip at the current timeline, rebinding just the buttons in view
 		PopulateTimeline(revalidate);
 		
 		// Create audio panel
@@ -568,7 +600,7 @@ public class ArrangeScene extends Scene{
 		timelinePanelConstraints.weightx = 1;
 		timelinePanelConstraints.gridx = 0;
 		timelinePanelConstraints.gridy = 0;
-		timelinePanelContainer.add(timelinePanel, timelinePanelConstraints);
+		timelinePanelContainer.add(timelineStrip, timelinePanelConstraints);
 		
 		// Add audio to outer panel
 		timelinePanelConstraints.weighty = 1;
@@ -582,7 +614,9 @@ public class ArrangeScene extends Scene{
 	}
 	
     /**
-     * PopulateTimeline() - creates thumbnail icons to display in scrollpane
+     * PopulateTimeline() - shows the timeline's slides on the strip and selects one
+     * 
+     * @param keepCurrentSelected - keeps the current slide selected if it's still in the timeline, otherwise selects the first
      * 
      * @author Fernando Palacios
 	 * @author Timothy Couch
@@ -590,151 +624,39 @@ public class ArrangeScene extends Scene{
      */
 	private void PopulateTimeline(boolean keepCurrentSelected)
 	{
-		int i = 0; //counter for buttons
-		int gridxCounter = 0; //layout counter x
-		int gridyCounter = 0; //layout counter y
-		
-		// Get instance of timeline and create button lists for thumb and transitions
+		// Get instance of timeline and show it on the strip
 		timeline = SceneHandler.singleton.getTimeline();
-		JToggleButton[] thumbButtons = new JToggleButton[timeline.thumbnailsList.getSize()];
-		JButton[] transButtons = new JButton[timeline.transitionsList.getSize()];
-		
-		GridBagConstraints c = new GridBagConstraints();
-		
-		// Populate thumbnail and transition buttons lists with thumbnails and transitions from timeline
-		for(i = 0; i < thumbButtons.length; i++) {
-			
-			// Set constraints
-			c.gridx = gridxCounter++;
-			c.gridy = gridyCounter;
-			c.fill = GridBagConstraints.BOTH;
-			c.anchor = GridBagConstraints.CENTER;
-			c.insets = new Insets(20, 20, 20, 20);
-			
-			// Create references to thumbnail and transition
-			Thumbnail buttonThumb = timeline.thumbnailsList.getThumbnail(i);
-			Transition buttonTrans = timeline.transitionsList.getTransition(i);
-			
-			// Create transition button and configurations
-			transButtons[i] = new JButton(new ImageIcon(SceneHandler.singleton.transitionImages.get(buttonTrans.getTransitionType()).getImage()));
-			JButton keeperTrans = transButtons [i];
-			transButtons[i].setPreferredSize(new Dimension(100, 75));
-			transButtons[i].setRolloverEnabled(true);
-			transButtons[i].setRolloverIcon(new ImageIcon(TransHover(SceneHandler.singleton.transitionImages.get(buttonTrans.getTransitionType()).getImage())));
-			transButtons[i].setPressedIcon(new ImageIcon(TransHover(SceneHandler.singleton.transitionImages.get(buttonTrans.getTransitionType()).getImage())));
-			transButtons[i].setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-			transButtons[i].setBorder(BorderFactory.createEmptyBorder());
-			transButtons[i].setFocusable(false);
-			transButtons[i].setContentAreaFilled(false);
-			transButtons[i].addActionListener(new ActionListener() {
-				public void actionPerformed(ActionEvent e) {
-					int index = timeline.transitionsList.indexOf(buttonTrans);
-					JFrame parent = SceneHandler.singleton.getMainFrame();
-			    	Coord2 point = new Coord2(
-			    			parent.getX() + parent.getSize().width/2,
-			    			parent.getY() + parent.getSize().height/2
-			    			);
-			    	
-					TransitionPane p = new TransitionPane(
-							parent, 
-							"Transition Settings", 
-							point, 
-							new Dimension(450, 395),
-							index
-							);
-					parent.setEnabled(false);
-					keeperTrans.setIcon(new ImageIcon(TransHover(SceneHandler.singleton.transitionImages.get(buttonTrans.getTransitionType()).getImage())));
-
-				}
-			});
-			
-			// Create thumb button with configurations
-			thumbButtons[i] = new JToggleButton(new ImageIcon(buttonThumb.getImageTimeline()));
-			JToggleButton keeper = thumbButtons [i];
-			thumbButtons[i].setPreferredSize(new Dimension(290, 170));
-			thumbButtons[i].setRolloverEnabled(true);
-			thumbButtons[i].setRolloverIcon(new ImageIcon(ImageHover(buttonThumb.getImageTimeline())));
-			thumbButtons[i].setPressedIcon(new ImageIcon(ImageHover(buttonThumb.getImageTimeline())));
-			thumbButtons[i].setSelectedIcon(new ImageIcon(ImageHover(buttonThumb.getImageTimeline())));
-			thumbButtons[i].setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-			thumbButtons[i].setBorder(BorderFactory.createEmptyBorder());
-			thumbButtons[i].setFocusable(false);
-			thumbButtons[i].setContentAreaFilled(false);
-			thumbButtons[i].addActionListener(new ActionListener(){
-				public void actionPerformed(ActionEvent e) {
-					int slideIndex = timeline.thumbnailsList.indexOf(buttonThumb);
-					currentSlide = buttonThumb;
-					
-					if(keeper.isSelected())
-					{
-						// Clear borders
-						for(JToggleButton button : thumbButtons)
-						{
-							button.setBorder(BorderFactory.createEmptyBorder());
-							button.setSelected(false);
-						}
-						
-						// Set border for newly selected button
-						selectButton(keeper);
-						//System.out.println(buttonThumb.getImagePath() + "selected");
-						
-						showCurrentSlide();
-						//imagePanel.repaint();
-					}
-				}
-				});
-			
-			// Add thumbnail button to timeline Panel
-			timelinePanel.add(thumbButtons[i], c);
-			
-			// Set constraints and add transition buttons toe timeline panel
-			c.gridx = gridxCounter++;
-			c.gridy = gridyCounter;
-			c.fill = GridBagConstraints.NONE;
-			c.insets = new Insets(0, 0, 0, 0);
-			
-			if(timeline.transitionsList.getSize() == (i + 1))
-			{
-				c.insets = new Insets(0, 0, 0, 20);
-				timelinePanel.add(transButtons[i], c);
-			} else {
-				c.insets = new Insets(0, 0, 0, 0);
-				timelinePanel.add(transButtons[i], c);
-			}
-		}
-		
+		timelineStrip.setTimeline(timeline);
 		
 		//show the first slide
 		if (timeline.thumbnailsList.getSize() > 0)
 		{
 			int index = timeline.thumbnailsList.indexOf(currentSlide);
-			if(keepCurrentSelected && currentSlide != null && index != -1) {
-				System.out.println(index);
-				selectButton(thumbButtons[index]);
-			}
-			else {
-				currentSlide = timeline.thumbnailsList.getThumbnail(0);
-				selectButton(thumbButtons[0]);
-			}		
+			selectSlide(keepCurrentSelected && currentSlide != null && index != -1 ? index : 0);
+		}
+		else selectSlide(-1);
+	}
+	
+	/**
+	 * selects the slide at index on the strip and shows it large
+	 * @param index slide to select, -1 to show nothing
+	 */
+	private void selectSlide(int index)
+	{
+		timelineStrip.setSelectedIndex(index);
+		if (index >= 0)
+		{
+			currentSlide = timeline.thumbnailsList.getThumbnail(index);
 			showCurrentSlide();
 		}
 		else {//empty slideshow
+			currentSlide = null;
 			imagePanel.removeAll();
 			imagePanel.add(new JLabel(), BorderLayout.CENTER);
 			revalidate();
 		}
 	}
 	
-	/**
-	 * selects the supplied button and draws a box around it
-	 * @param b button to select
-	 */
-	private static void selectButton(JToggleButton b)
-	{
-		b.setSelected(true);
-		b.setBorder(new LineBorder(SliderColor.aqua, 3));
-	}
-	
 	/**
 	 * creates a JLabel with the current slide thumbnail on it
 	 * @return JLabel of the current slide
@@ -830,14 +752,9 @@ public class ArrangeScene extends Scene{
 			
 			//System.out.println(audioTrackSize);
 		    
-		    // Create text field for audio
-			JTextField audioText = new JTextField();
-			audioText.setBackground(aqua);
-			audioText.setBorder(BorderFactory.createEmptyBorder());
-			audioText.setForeground(dark_gray);
-	        audioText.setEditable(false);
-		    audioText.setText(audioTrack.getAudioName());
-		    audioText.setPreferredSize(new Dimension(audioTrackSize, 20));
+		    // Create waveform for audio, at the same scale as the timeline
+			WaveformView audioWave = new WaveformView(audioTrack, secondsToPixels);
+		    audioWave.setPreferredSize(new Dimension(audioTrackSize, 20));
 		    
 		    // CReate remove audio button
 		    JButton removeAudioButton = new JButton(removeAudio);
@@ -878,7 +795,7 @@ public class ArrangeScene extends Scene{
 		    audioConstraints.gridx = ++audioxCounter;
 		    
 		    // Add audio track to audio panel
-		    audioPanel.add(audioText, audioConstraints);
+		    audioPanel.add(audioWave, audioConstraints);
 		    audioConstraints.gridx = ++audioxCounter;
 		    
 		    // Add audio track to audio panel
@@ -975,66 +892,5 @@ public class ArrangeScene extends Scene{
 		SceneHandler.singleton.SwitchToScene(SceneType.SELECTION);
 		SelectScene select = (SelectScene) SceneHandler.singleton.GetSceneInstanceByType(SceneType.SELECTION);
 		select.UpdateSelected();
-	} 
-	
-    /**
-     * ImageHover() - darkens the image so that it adds a hovered effect
-     * 
-     * @param thumbnail - the thumbnail image that needs to be processed
-	 * 
-	 * @author Fernando Palacios
-     */
-    private Image ImageHover(Image thumbnail) {
-        Image img = thumbnail;
-
-        BufferedImage buffered = new BufferedImage(img.getWidth(null),
-        img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
-        buffered.getGraphics().drawImage(img, 0, 0, null);
-
-        for (int i = 0; i < buffered.getWidth(); i++) {
-            for (int j = 0; j < buffered.getHeight(); j++) {                    
-                int rgb = buffered.getRGB(i, j);
-                int alpha = (rgb >> 24) & 0x000000FF;
-                Color c = new Color(rgb);
-                if (alpha != 0) {
-                    int red = (c.getRed() - 30) <= 0 ? 0 : c.getRed() - 30;
-                    int green = (c.getGreen() - 30) <= 0 ? 0
-                        : c.getGreen() - 30;
-                    int blue = (c.getBlue() - 30) <= 0 ? 0 : c.getBlue() - 30;
-                    c = new Color(red, green, blue);
-                    buffered.setRGB(i, j, c.getRGB());
-                }
-            }
-        } 
-        return buffered;
-    }
-    
-    /**
-     * TransHover() - darkens the image so that it adds a hovered effect
-     * 
-     * @param thumbnail - the thumbnail image that needs to be processed
-	 * 
-	 * @author Fernando Palacios
-     */
-    private Image TransHover(Image thumbnail) {
-        Image img = thumbnail;
-
-        BufferedImage buffered = new BufferedImage(img.getWidth(null),
-        img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
-        buffered.getGraphics().drawImage(img, 0, 0, null);
-
-        for (int i = 0; i < buffered.getWidth(); i++) {
-            for (int j = 0; j < buffered.getHeight(); j++) {                    
-                int rgb = buffered.getRGB(i, j);
-                int alpha = (rgb >> 24) & 0x000000FF;
-                Color c = new Color(rgb);
-                if (alpha != 0) {
-                	c = new Color(217, 202, 192);
-                    buffered.setRGB(i, j, c.getRGB());
-                }
-            }
-        } 
-        return buffered;
-    }
-
-}
\ No newline at end of file
+	}
+}
@@ -9,18 +9,20 @@
  */
 package creator;
 
-import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.Icon;
@@ -29,23 +31,23 @@ import javax.swing.JButton;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.JScrollPane;
-import javax.swing.border.LineBorder;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 
 import core.*;
 
-public class SelectScene extends Scene
+public class SelectScene extends Scene implements ThumbnailLoadListener, ImageCrawlListener, ImageWatchListener
 {
-	private static final FileNameExtensionFilter imageFileFilter = new FileNameExtensionFilter("Image File", "jpg", "jpeg", "png", "gif", "bmp");
 
 	/** Create custom color */
 	private JPanel optionsPanel;
 	
-	/** Create custom color */
-	private JPanel imagePanel;
+	/** Grid of image buttons */
+	private ThumbnailGrid thumbGrid;
 
 	/** main image selection panel constraints */
 	private GridBagConstraints imagePanelConstraints;
@@ -68,9 +70,6 @@ public class SelectScene extends Scene
 	/**export slider file button*/
 	private JButton exportButton;
 	
-	/** List of all thumbnail thumbButtons to be shown on the image panel */
-	private JButton[] thumbButtons;
-	
 	/** Deselect all button */
 	private JButton deselectAllButton;
 	
@@ -109,6 +108,27 @@ public class SelectScene extends Scene
 	
 	/** Create ThumbnailsList object to reference */
 	private ThumbnailsList allThumbs;
+	
+	/** Loads thumbnails in the background and fills in the buttons as they finish */
+	private ThumbnailLoader thumbnailLoader;
+	
+	/** Finds the images in the project directory in the background and adds them to the grid as they're found */
+	private ImageCrawler imageCrawler;
+	
+	/** Watches the folders the crawler finds so images added, deleted, or edited later show up without reopening */
+	private ImageWatcher imageWatcher;
+	
+	/** whether the scene is open, so images found while it's closed don't start thumbnails loading */
+	private boolean shown = false;
+	
+	/** indices in allThumbs of thumbnails the loader has finished, so ones far from the view can be unloaded */
+	private BitSet loadedThumbs = new BitSet();
+	
+	/** index in allThumbs of every image by path, so images reported twice are only added once and loads find where they moved */
+	private HashMap<String, Integer> indexByPath = new HashMap<String, Integer>();
+	
+	/** thumbnails further than this past the ones near the view are unloaded so memory stays flat on big folders */
+	private static final int unloadDistance = ThumbnailGrid.columns * 20;
 
 	/**
 	 * SelectScene() - sets up selection scene with GUI stuff
@@ -120,6 +140,9 @@ public class SelectScene extends Scene
     public SelectScene()
     {
     	allThumbs = new ThumbnailsList();
+    	thumbnailLoader = new ThumbnailLoader(this);
+    	imageWatcher = new ImageWatcher(this);
+    	imageCrawler = new ImageCrawler(this, imageWatcher);
     	
 		// Create GridBagLayout object and constraints
 		GridBagLayout gridBag = new GridBagLayout();
@@ -315,15 +338,44 @@ public class SelectScene extends Scene
 		c.insets = new Insets(44, 44, 44, 44);
 		imagePanelConstraints = (GridBagConstraints) c.clone();
 		
-		// Set up blank image panel
+		// Set up blank image grid. It's kept for the life of the scene and only binds buttons for what's in view
+		thumbGrid = new ThumbnailGrid(new ThumbnailGrid.Listener() {
+			@Override
+			public void cellClicked(int index) {
+				//add button to or remove button from timeline
+				Timeline timeline = SceneHandler.singleton.getTimeline();
+				Thumbnail buttonThumb = allThumbs.getThumbnail(index);
+				
+				int slideIndex = timeline.thumbnailsList.indexOf(buttonThumb);
+				//if thumbnail is in the timeline, remove it
+				if (slideIndex >= 0)
+					timeline.removeSlide(slideIndex);
+				else//thumbnail not on timeline, add it
+					timeline.addSlide(buttonThumb);
+				
+				thumbGrid.refreshCell(index);
+			}
+			
+			@Override
+			public void cellsShown(int first, int last) {
+				thumbnailLoader.loadOnly(allThumbs, first, last);
+				unloadFarThumbnails(first, last);
+			}
+		});
 		setupImagePanel(false);
-		imagePanelContainer.add(imagePanel, c);
 		
 		// Set scroll pane configurations
 		imageScroller = new JScrollPane(imagePanelContainer, JScrollPane.VERTICAL_SCROLLBAR_ALWAYS, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
 		imageScroller.getVerticalScrollBar().setBackground(SliderColor.light_gray);
 		imageScroller.setBorder(BorderFactory.createEmptyBorder());
 		imageScroller.getVerticalScrollBar().setUnitIncrement(25);
+		imageScroller.getViewport().addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				// Move the image buttons to whatever scrolled into view
+				thumbGrid.updateVisibleSlots();
+			}
+		});
 		
 		// Set constraints and add options panel
 		c.fill = GridBagConstraints.BOTH;
@@ -347,7 +399,7 @@ public class SelectScene extends Scene
 	}
 	
 	/**
-	 * populates the image panel with images from allThumbs
+	 * points the image grid at allThumbs
 	 * @param revalidate whether to revalidate the scene once finished
 	 * 
 	 * @author Fernando Palacios
@@ -355,15 +407,12 @@ public class SelectScene extends Scene
 	 */
 	public void setupImagePanel(boolean revalidate)
 	{		
-		// Create image panel with new images
-		imagePanel = new JPanel();
-		imagePanel.setLayout(new GridBagLayout());
-		imagePanel.setBackground(SliderColor.dark_gray);
-		ShowImages();
+		// Show the images, binding just the buttons in view
+		thumbGrid.setThumbnails(allThumbs);
 		
 		// add to outer panel that houses the image panel for layout and whitespace
 		imagePanelContainer.removeAll();
-		imagePanelContainer.add(imagePanel, imagePanelConstraints);
+		imagePanelContainer.add(thumbGrid, imagePanelConstraints);
 
 		if (revalidate)
 			this.revalidate();
@@ -410,95 +459,155 @@ public class SelectScene extends Scene
      */
 	public void UpdateSelected()
 	{
-		for(int i = 0; i < thumbButtons.length; i++)
+		thumbGrid.refresh();
+	}
+	
+	/**
+	 * fills in the button for a thumbnail once the loader finishes it
+	 * @param index index of the thumbnail in allThumbs
+	 * @param thumbnail the thumbnail that finished
+	 */
+	@Override
+	public void notifyOfThumbnailLoaded(int index, Thumbnail thumbnail)
+	{
+		//images removed since this was queued move the thumbnail down
+		if (index >= allThumbs.getSize() || allThumbs.getThumbnail(index) != thumbnail)
 		{
-			//get instance of timeline to compare what is in it
-			Timeline timeline = SceneHandler.singleton.getTimeline();
-			
-			//grab individual thumbnail
-			Thumbnail buttonThumb = allThumbs.getThumbnail(i);
-
-			int slideIndex = timeline.thumbnailsList.indexOf(buttonThumb);
-			//if thumbnail is in the timeline, keep it highlighted
-			if (slideIndex >= 0)
+			Integer current = indexByPath.get(thumbnail.getImagePath());
+			index = current != null ? current : -1;
+		}
+		
+		//make sure the scene hasn't been cleared out and the image is still there
+		if (index >= 0 && allThumbs.getThumbnail(index) == thumbnail)
+		{
+			loadedThumbs.set(index);
+			thumbGrid.refreshCell(index);
+		}
+	}
+	
+	/**
+	 * adds images to the end of the grid as the crawler finds them
+	 * @param imagePaths paths of the images found
+	 */
+	@Override
+	public void notifyOfImagesFound(List<String> imagePaths)
+	{
+		for (String path : imagePaths)
+			addImage(path);
+		//show() lays the grid out again, so only grow it now if it can be seen
+		if (shown)
+			thumbGrid.thumbnailsAdded();
+	}
+	
+	/**
+	 * updates the grid as images in the project directory change, touching only the thumbnails that changed
+	 * @param added paths of new images
+	 * @param removed paths of images that are gone
+	 * @param modified paths of images that need loading again
+	 */
+	@Override
+	public void notifyOfImagesChanged(List<String> added, List<String> removed, List<String> modified)
+	{
+		ArrayList<Thumbnail> thumbs = allThumbs.getThumbnails();
+		
+		if (!removed.isEmpty())
+		{
+			//close the gaps in one pass, keeping which thumbnails are loaded lined up with where they move to
+			HashSet<String> gone = new HashSet<String>(removed);
+			//slides on the timeline share these thumbnails, so theirs keep what's loaded now the file can't be read again
+			HashSet<String> inTimeline = new HashSet<String>();
+			for (Thumbnail t : SceneHandler.singleton.getTimeline().thumbnailsList.getThumbnails())
+				inTimeline.add(t.getImagePath());
+			BitSet stillLoaded = new BitSet();
+			int kept = 0;
+			for (int i = 0; i < thumbs.size(); i++)
 			{
-				thumbButtons[i].setBorder(new LineBorder(SliderColor.aqua, 3));
-				thumbButtons[i].setIcon(new ImageIcon(ImageHover(buttonThumb.getImageThumb())));			
+				Thumbnail thumb = thumbs.get(i);
+				if (gone.contains(thumb.getImagePath()))
+				{
+					indexByPath.remove(thumb.getImagePath());
+					if (!inTimeline.contains(thumb.getImagePath()))
+						forgetImage(thumb);
+					continue;
+				}
+				if (loadedThumbs.get(i))
+					stillLoaded.set(kept);
+				indexByPath.put(thumb.getImagePath(), kept);
+				thumbs.set(kept++, thumb);
 			}
-			else//thumbnail not on timeline, remove highlight
+			thumbs.subList(kept, thumbs.size()).clear();
+			loadedThumbs = stillLoaded;
+		}
+		
+		if (!modified.isEmpty())
+		{
+			//the thumbnail cache notices the file changed, so unloading is enough for it to be made again
+			for (String path : modified)
 			{
-				thumbButtons[i].setBorder(BorderFactory.createEmptyBorder());
-				thumbButtons[i].setIcon(new ImageIcon(buttonThumb.getImageThumb()));
+				Integer index = indexByPath.get(path);
+				if (index != null)
+				{
+					forgetImage(thumbs.get(index));
+					loadedThumbs.clear(index);
+				}
 			}
 		}
+		
+		for (String path : added)
+			addImage(path);
+		
+		//show() lays the grid out again, so only update it now if it can be seen
+		if (shown)
+		{
+			//thumbnails moved or need loading again, so the grid asks for what's in view again
+			if (!removed.isEmpty() || !modified.isEmpty())
+				thumbGrid.refresh();
+			else thumbGrid.thumbnailsAdded();
+		}
 	}
 	
-    /**
-     * ShowImages() - creates thumbnail icons to display in scrollpane
-     * 
-     * @author Fernando Palacios
-	 * @author Timothy Couch
-     */
-	private void ShowImages()
+	/**
+	 * adds an image to the end of the grid unless it's already there
+	 * @param path path of the image
+	 */
+	private void addImage(String path)
 	{
-		int i = 0; //counter for buttons
-		int gridxCounter = 0; //layout counter x
-		int gridyCounter = 0; // layout counter y
-		thumbButtons = new JButton[allThumbs.getSize()];
-		GridBagConstraints c = new GridBagConstraints();
-
-		for(i = 0; i < thumbButtons.length; i++) {
-			
-			if (gridxCounter > 2) {
-				gridxCounter = 0;
-				gridyCounter++;
+		if (!indexByPath.containsKey(path))
+		{
+			indexByPath.put(path, allThumbs.getSize());
+			allThumbs.addThumbnail(new Thumbnail(path, false));
+		}
+	}
+	
+	/**
+	 * drops everything loaded or made from a thumbnail's image
+	 * @param thumb thumbnail of the image that changed or is gone
+	 */
+	private static void forgetImage(Thumbnail thumb)
+	{
+		thumb.unload();
+		HoverIconCache.singleton.invalidate(thumb.getImagePath());
+		ImageStore.singleton.invalidate(thumb.getImagePath());
+	}
+	
+	/**
+	 * unloads the thumbnails that are far from the ones near the view. They come back from the thumbnail cache if
+	 * scrolled back to
+	 * @param first index of the first thumbnail near the view
+	 * @param last index of the last thumbnail near the view
+	 */
+	private void unloadFarThumbnails(int first, int last)
+	{
+		for (int i = loadedThumbs.nextSetBit(0); i >= 0; i = loadedThumbs.nextSetBit(i + 1))
+		{
+			if (i < first - unloadDistance || i > last + unloadDistance)
+			{
+				allThumbs.getThumbnail(i).unload();
+				loadedThumbs.clear(i);
 			}
-			
-			//set constraints
-			c.gridx = gridxCounter;
-			c.gridy = gridyCounter;
-			c.fill = GridBagConstraints.BOTH;
-			c.insets = new Insets(40, 40, 40, 40);
-			
-			gridxCounter++;
-			
-			Thumbnail buttonThumb = allThumbs.getThumbnail(i);
-			
-			thumbButtons[i] = new JButton(new ImageIcon(buttonThumb.getImageThumb()));
-			JButton keeper = thumbButtons [i];
-			thumbButtons[i].setPreferredSize(new Dimension(320, 200));
-			thumbButtons[i].setRolloverEnabled(true);
-			thumbButtons[i].setRolloverIcon(new ImageIcon(ImageHover(buttonThumb.getImageThumb())));
-			thumbButtons[i].setPressedIcon(new ImageIcon(ImageHover(buttonThumb.getImageThumb())));
-			thumbButtons[i].setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-			thumbButtons[i].setBorder(BorderFactory.createEmptyBorder());
-			thumbButtons[i].setFocusable(false);
-			thumbButtons[i].setContentAreaFilled(false);
-			thumbButtons[i].addActionListener(new ActionListener(){
-				public void actionPerformed(ActionEvent e) {
-					//add button to or remove button from timeline
-					Timeline timeline = SceneHandler.singleton.getTimeline();
-
-					int slideIndex = timeline.thumbnailsList.indexOf(buttonThumb);
-					//if thumbnail is in the timeline, remove it
-					if (slideIndex >= 0)
-					{
-						timeline.removeSlide(slideIndex);
-						keeper.setBorder(BorderFactory.createEmptyBorder());
-						keeper.setIcon(new ImageIcon(buttonThumb.getImageThumb()));
-					}
-					else//thumbnail not on timeline, add it
-					{
-						timeline.addSlide(buttonThumb);
-						keeper.setBorder(new LineBorder(SliderColor.aqua, 3));
-						keeper.setIcon(new ImageIcon(ImageHover(buttonThumb.getImageThumb())));
-					}
-				}
-				});
-			imagePanel.add(thumbButtons[i], c);
 		}
 	}
-
+	
     /**
      * initialize() - opens the images and sets up the scene for use
      * 
@@ -513,37 +622,57 @@ public class SelectScene extends Scene
 
         directoryLabel.setText(directoryLabel.getText() + SceneHandler.singleton.getDirectory());
         
-		//set up thumbnail list
+		//set up thumbnail list. Images are found and loaded in the background and fill in as they finish
+		thumbnailLoader.cancel();
+		imageCrawler.cancel();
 		allThumbs = new ThumbnailsList();
-		addImagesInDirectory(new File(SceneHandler.singleton.getDirectory()));
+		loadedThumbs.clear();
+		indexByPath.clear();
+		//the grid asks for the thumbnails in view once it's laid out
 		setupImagePanel(true);
-		UpdateSelected();
+		//watching starts first so the crawler can hand it each folder before listing it
+		imageWatcher.start(SceneHandler.singleton.getDirectory());
+		imageCrawler.crawl(SceneHandler.singleton.getDirectory());
     }
     
     /**
-     * Adds all images that are in the supplied directory to allThumbs recursively (searches subfolders)
-     * @param currDir the directory to add images from and below
-	 * 
-	 * @author Timothy Couch
+     * show() - picks thumbnail loading back up if it was cancelled when leaving the scene
      */
-    private void addImagesInDirectory(File currDir) {
-    	//Scraping directory credit to RoflCopterException at https://stackoverflow.com/questions/5694385/getting-the-filenames-of-all-files-in-a-folder
-    	File[] files = currDir.listFiles();
-
-    	for (File f : files) {
-			//if it's a file
-    		if (f.isFile()) {
-				//if image, add it to the list of thumbnails
-				if (imageFileFilter.accept(f))
-				{
-					allThumbs.addThumbnail(new Thumbnail(f.getAbsolutePath()));
-				}
-			}
-			//if it's a directory, check in it
-			else if (f.isDirectory())
-				addImagesInDirectory(f);
-    	}
-	}
+    @Override
+    public void show()
+    {
+    	boolean wasInitialized = isInitialized();
+    	shown = true;
+    	super.show();
+    	
+    	//initialize already started the loader the first time. The grid asks for what's in view again
+    	if (wasInitialized)
+    		thumbGrid.refresh();
+    }
+    
+    /**
+     * hide() - stops loading thumbnails nobody can see
+     */
+    @Override
+    public void hide()
+    {
+    	super.hide();
+    	shown = false;
+    	//the crawl and watching keep going so the list is up to date when the scene is opened again
+    	thumbnailLoader.cancel();
+    }
+    
+    /**
+     * destroy() - stops loading thumbnails and watching the directory of the closed project
+     */
+    @Override
+    public void destroy()
+    {
+    	super.destroy();
+    	thumbnailLoader.cancel();
+    	imageCrawler.cancel();
+    	imageWatcher.stop();
+    }
     
     /**
      * SelectAll() - selects all images so they are in timeline
@@ -555,19 +684,19 @@ public class SelectScene extends Scene
     	
     	Timeline timeline = SceneHandler.singleton.getTimeline();
     	
-    	for(int i = 0; i < thumbButtons.length; i++) {
+    	//look up what's already in the timeline once instead of searching it for every image
+    	HashSet<String> inTimeline = new HashSet<String>();
+    	for (Thumbnail t : timeline.thumbnailsList.getThumbnails())
+    		inTimeline.add(t.getImagePath());
+    	
+    	for(int i = 0; i < list.getSize(); i++) {
     		
     		Thumbnail buttonThumb = list.getThumbnail(i);
-
-			int slideIndex = timeline.thumbnailsList.indexOf(buttonThumb);
 			
-			if (slideIndex < 0)
-			{
+			if (inTimeline.add(buttonThumb.getImagePath()))
 				timeline.addSlide(buttonThumb);
-				thumbButtons[i].setBorder(new LineBorder(SliderColor.aqua, 3));
-				thumbButtons[i].setIcon(new ImageIcon(ImageHover(buttonThumb.getImageThumb())));
-			}
 		}
+    	thumbGrid.refresh();
     }
     
     /**
@@ -580,71 +709,15 @@ public class SelectScene extends Scene
     	
     	Timeline timeline = SceneHandler.singleton.getTimeline();
     	
-    	for(int i = 0; i < thumbButtons.length; i++) {
+    	for(int i = 0; i < list.getSize(); i++) {
     		
     		Thumbnail buttonThumb = list.getThumbnail(i);
 
 			int slideIndex = timeline.thumbnailsList.indexOf(buttonThumb);
 			
 			if (slideIndex >= 0)
-			{
 				timeline.removeSlide(slideIndex);
-				thumbButtons[i].setBorder(BorderFactory.createEmptyBorder());
-				thumbButtons[i].setIcon(new ImageIcon(buttonThumb.getImageThumb()));
-			}
 		}
-    }
-    
-    /**
-     * ImageHover() - darkens the image so that it adds a hovered effect
-     * @param thumbnail - the thumbnail image that needs to be processed
-	 * 
-	 * @author Fernando Palacios
-     */
-    private Image ImageHover(Image thumbnail) {
-        Image img = thumbnail;
-
-        BufferedImage buffered = new BufferedImage(img.getWidth(null),
-        img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
-        buffered.getGraphics().drawImage(img, 0, 0, null);
-
-        for (int i = 0; i < buffered.getWidth(); i++) {
-            for (int j = 0; j < buffered.getHeight(); j++) {                    
-                int rgb = buffered.getRGB(i, j);
-                int alpha = (rgb >> 24) & 0x000000FF;
-                Color c = new Color(rgb);
-                if (alpha != 0) {
-                    int red = (c.getRed() - 40) <= 0 ? 0 : c.getRed() - 40;
-                    int green = (c.getGreen() - 40) <= 0 ? 0
-                        : c.getGreen() - 40;
-                    int blue = (c.getBlue() - 40) <= 0 ? 0 : c.getBlue() - 40;
-                    c = new Color(red, green, blue);
-                    buffered.setRGB(i, j, c.getRGB());
-                }
-            }
-        }
-        return buffered;
-    }
-    
-    private Image tint(Image thumbnail, Color color) {
-    	
-        Image img = thumbnail;
-
-        BufferedImage image = new BufferedImage(img.getWidth(null),
-        img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
-        image.getGraphics().drawImage(img, 0, 0, null);
-        
-        for (int x = 0; x < image.getWidth(); x++) {
-            for (int y = 0; y < image.getHeight(); y++) {
-                Color pixelColor = new Color(image.getRGB(x, y), true);
-                int r = (pixelColor.getRed() + color.getRed()) / 2;
-                int g = (pixelColor.getGreen() + color.getGreen()) / 2;
-                int b = (pixelColor.getBlue() + color.getBlue()) / 2;
-                int a = pixelColor.getAlpha();
-                int rgba = (a << 24) | (r << 16) | (g << 8) | b;
-                image.setRGB(x, y, rgba);
-            }
-        }
-        return image;
+    	thumbGrid.refresh();
     }
 }
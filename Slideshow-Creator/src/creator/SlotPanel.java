@@ -0,0 +1,143 @@
+/**
+ * SlotPanel.java
+ * Panel that only has components for the items that can be seen. Each item's components are kept together in a slot,
+ * and slots that scroll out of view are freed and bound to the items scrolling in instead of making new ones
+ * 
+ * Slideshow Creator
+ */
+
+package creator;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.swing.JPanel;
+
+public abstract class SlotPanel<S extends SlotPanel.Slot> extends JPanel
+{
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * the components for one item, shown for whichever item it's bound to
+	 */
+	protected abstract static class Slot
+	{
+		/** index of the item shown, -1 if spare */
+		protected int index = -1;
+		
+		/**
+		 * shows the item at index i and moves the components to its spot
+		 */
+		protected abstract void bind(int i);
+		
+		/**
+		 * hides the components until the slot is bound again
+		 */
+		protected abstract void unbind();
+	}
+	
+	/** bound slots by the index of their item */
+	private final Map<Integer, S> slots = new HashMap<Integer, S>();
+	
+	/** slots not showing anything, ready to be bound */
+	private final ArrayDeque<S> spares = new ArrayDeque<S>();
+	
+	/**
+	 * updateVisibleSlots - binds slots to the items that can be seen and frees the rest. Run whenever the view
+	 * scrolls or resizes
+	 */
+	public abstract void updateVisibleSlots();
+	
+	/**
+	 * makes a slot when there isn't a spare one, adding its components to the panel
+	 */
+	protected abstract S createSlot();
+	
+	/**
+	 * places the slots after the panel is laid out
+	 */
+	@Override
+	public void doLayout()
+	{
+		updateVisibleSlots();
+	}
+	
+	/**
+	 * binds slots to the items from first to last and frees every other slot
+	 * @param first index of the first item in view
+	 * @param last index of the last item in view, less than first if none are
+	 */
+	protected void bindRange(int first, int last)
+	{
+		//free the slots that scrolled out first so they can be reused for the ones scrolling in
+		Iterator<Map.Entry<Integer, S>> it = slots.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Integer, S> entry = it.next();
+			int index = entry.getKey();
+			if (index < first || index > last)
+			{
+				entry.getValue().unbind();
+				spares.push(entry.getValue());
+				it.remove();
+			}
+		}
+		
+		for (int i = first; i <= last; i++)
+		{
+			if (!slots.containsKey(i))
+			{
+				S slot = spares.isEmpty() ? createSlot() : spares.pop();
+				slot.bind(i);
+				slots.put(i, slot);
+			}
+		}
+	}
+	
+	/**
+	 * shows the item again in the slot bound to index, if there is one
+	 */
+	protected void rebind(int index)
+	{
+		S slot = slots.get(index);
+		if (slot != null)
+			slot.bind(index);
+	}
+	
+	/**
+	 * frees the slots of index and every item after it, so they're bound fresh on the next layout
+	 */
+	protected void unbindFrom(int index)
+	{
+		Iterator<Map.Entry<Integer, S>> it = slots.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Integer, S> entry = it.next();
+			if (entry.getKey() >= index)
+			{
+				entry.getValue().unbind();
+				spares.push(entry.getValue());
+				it.remove();
+			}
+		}
+	}
+	
+	/**
+	 * frees every slot
+	 */
+	protected void unbindAll()
+	{
+		unbindFrom(0);
+	}
+	
+	/**
+	 * @return the bound slots
+	 */
+	protected Collection<S> getBoundSlots()
+	{
+		return slots.values();
+	}
+}
@@ -0,0 +1,285 @@
+/**
+ * ThumbnailGrid.java
+ * Grid of image buttons on the select scene. Only makes buttons for the rows that can be seen, reusing them as it scrolls,
+ * and tells the scene which thumbnails are near the view so only those get loaded
+ * 
+ * Slideshow Creator
+ */
+
+package creator;
+
+import java.awt.Color;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+
+import javax.swing.BorderFactory;
+import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.border.LineBorder;
+
+import core.HoverIconCache;
+import core.SceneHandler;
+import core.SliderColor;
+import core.Thumbnail;
+import core.ThumbnailsList;
+
+public class ThumbnailGrid extends SlotPanel<ThumbnailGrid.ImageSlot>
+{
+	private static final long serialVersionUID = 1L;
+	
+	/** number of images across */
+	public static final int columns = 3;
+	
+	/** size of an image button */
+	public static final int cellWidth = 320, cellHeight = 200;
+	
+	/** space around each image button */
+	public static final int cellInset = 40;
+	
+	/** rows past each edge of the view that keep their buttons and get their thumbnails loaded */
+	private static final int overscanRows = 2;
+	
+	/**
+	 * what happens when the grid is used
+	 */
+	public interface Listener {
+		/**
+		 * the image button at index was clicked
+		 */
+		void cellClicked(int index);
+		
+		/**
+		 * the thumbnails from first to last are now in or near the view. Called when that range changes
+		 */
+		void cellsShown(int first, int last);
+	}
+	
+	/**
+	 * an image button, shown for whichever thumbnail it's bound to
+	 */
+	class ImageSlot extends SlotPanel.Slot
+	{
+		private final JButton button;
+		
+		/**
+		 * ImageSlot - makes the button once. Binding changes what it shows
+		 */
+		private ImageSlot()
+		{
+			button = new JButton();
+			button.setRolloverEnabled(true);
+			button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+			button.setFocusable(false);
+			button.setContentAreaFilled(false);
+			button.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					if (index >= 0)
+						listener.cellClicked(index);
+				}
+			});
+			add(button);
+		}
+		
+		/**
+		 * shows the thumbnail at index i and moves the button to its spot
+		 * Uses the placeholder images if the thumbnail hasn't finished loading
+		 */
+		@Override
+		protected void bind(int i)
+		{
+			index = i;
+			Thumbnail thumb = thumbs.getThumbnail(i);
+			boolean inTimeline = SceneHandler.singleton.getTimeline().thumbnailsList.indexOf(thumb) >= 0;
+			
+			//if thumbnail is in the timeline, keep it highlighted
+			if (inTimeline)
+				button.setBorder(new LineBorder(SliderColor.aqua, 3));
+			else button.setBorder(BorderFactory.createEmptyBorder());
+			
+			//only touch the images if they're ready so this doesn't load them on the event thread
+			if (thumb.isLoaded())
+			{
+				ImageIcon hoverIcon = HoverIconCache.singleton.getThumbHover(thumb);
+				button.setIcon(inTimeline ? hoverIcon : new ImageIcon(thumb.getImageThumb()));
+				button.setRolloverIcon(hoverIcon);
+				button.setPressedIcon(hoverIcon);
+			}
+			else
+			{
+				button.setIcon(inTimeline ? highlightedPlaceholder : placeholder);
+				button.setRolloverIcon(highlightedPlaceholder);
+				button.setPressedIcon(highlightedPlaceholder);
+			}
+			
+			int column = i % columns;
+			int row = i / columns;
+			button.setBounds(column * cellSpanX() + cellInset, row * cellSpanY() + cellInset, cellWidth, cellHeight);
+			button.setVisible(true);
+		}
+		
+		/**
+		 * hides the button until the slot is bound again
+		 */
+		@Override
+		protected void unbind()
+		{
+			index = -1;
+			button.setVisible(false);
+		}
+	}
+	
+	/** thumbnails shown */
+	private ThumbnailsList thumbs = new ThumbnailsList();
+	
+	/** told about clicks and which thumbnails are in view */
+	private final Listener listener;
+	
+	/** range last passed to cellsShown, so it's only called when it changes */
+	private int shownFirst = 0, shownLast = -1;
+	
+	/** Shown on image buttons until their image finishes loading */
+	private final ImageIcon placeholder;
+	
+	/** Shown on rollover of image buttons until their image finishes loading */
+	private final ImageIcon highlightedPlaceholder;
+	
+	/**
+	 * ThumbnailGrid - makes an empty grid
+	 * @param listener told about clicks and which thumbnails are in view
+	 */
+	public ThumbnailGrid(Listener listener)
+	{
+		this.listener = listener;
+		setLayout(null);
+		setBackground(SliderColor.dark_gray);
+		placeholder = new ImageIcon(createPlaceholder(SliderColor.light_gray));
+		highlightedPlaceholder = new ImageIcon(createPlaceholder(SliderColor.very_light_gray));
+	}
+	
+	/**
+	 * setThumbnails - shows the thumbnails given, rebinding the visible buttons to them
+	 * @param thumbs thumbnails to show
+	 */
+	public void setThumbnails(ThumbnailsList thumbs)
+	{
+		this.thumbs = thumbs;
+		refresh();
+	}
+	
+	/**
+	 * refresh - rebinds every visible button and tells the listener what's in view again, for when the timeline changed
+	 * or the thumbnails need asking for again
+	 */
+	public void refresh()
+	{
+		unbindAll();
+		shownFirst = 0;
+		shownLast = -1;
+		revalidate();
+		updateVisibleSlots();
+		repaint();
+	}
+	
+	/**
+	 * thumbnailsAdded - grows the grid to fit thumbnails added to the end of the list and binds any now in view
+	 */
+	public void thumbnailsAdded()
+	{
+		revalidate();
+		updateVisibleSlots();
+		repaint();
+	}
+	
+	/**
+	 * refreshCell - shows the thumbnail at index again if its button is bound, for when it loaded or was added to or
+	 * removed from the timeline
+	 * @param index index of the thumbnail
+	 */
+	public void refreshCell(int index)
+	{
+		rebind(index);
+	}
+	
+	/**
+	 * binds buttons to the rows that can be seen and frees the rest, then tells the listener if the range changed.
+	 * Run whenever the view scrolls or resizes
+	 */
+	@Override
+	public void updateVisibleSlots()
+	{
+		int count = thumbs.getSize();
+		Rectangle view = getVisibleRect();
+		int first = 0;
+		int last = -1;
+		if (count > 0 && !view.isEmpty())
+		{
+			first = Math.max(view.y / cellSpanY() - overscanRows, 0) * columns;
+			last = Math.min(((view.y + view.height) / cellSpanY() + overscanRows + 1) * columns - 1, count - 1);
+		}
+		
+		bindRange(first, last);
+		
+		if (first != shownFirst || last != shownLast)
+		{
+			shownFirst = first;
+			shownLast = last;
+			if (last >= first)
+				listener.cellsShown(first, last);
+		}
+	}
+	
+	/**
+	 * as tall as all the rows
+	 */
+	@Override
+	public Dimension getPreferredSize()
+	{
+		int rows = (thumbs.getSize() + columns - 1) / columns;
+		return new Dimension(columns * cellSpanX(), rows * cellSpanY());
+	}
+	
+	/**
+	 * width each column takes up
+	 */
+	private static int cellSpanX()
+	{
+		return cellInset + cellWidth + cellInset;
+	}
+	
+	/**
+	 * height each row takes up
+	 */
+	private static int cellSpanY()
+	{
+		return cellInset + cellHeight + cellInset;
+	}
+	
+	/**
+	 * makes an image button the first time there isn't a spare one
+	 */
+	@Override
+	protected ImageSlot createSlot()
+	{
+		return new ImageSlot();
+	}
+	
+	/**
+	 * createPlaceholder() - makes a blank thumbnail-sized image to show while a thumbnail loads
+	 * @param color color to fill the placeholder with
+	 * @return placeholder image
+	 */
+	private static BufferedImage createPlaceholder(Color color)
+	{
+		BufferedImage image = new BufferedImage(Thumbnail.getThumbSize().x, Thumbnail.getThumbSize().y, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+		g.dispose();
+		return image;
+	}
+}
@@ -0,0 +1,309 @@
+/**
+ * TimelineStrip.java
+ * Row of slide and transition buttons on the arrange scene's timeline. Only makes buttons for the slides that can be seen,
+ * reusing them as it scrolls, and changes in place when slides are swapped or removed
+ * 
+ * Slideshow Creator
+ */
+
+package creator;
+
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.BorderFactory;
+import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.JToggleButton;
+import javax.swing.border.LineBorder;
+
+import core.HoverIconCache;
+import core.SceneHandler;
+import core.SliderColor;
+import core.Thumbnail;
+import core.Timeline;
+import core.Transition;
+
+public class TimelineStrip extends SlotPanel<TimelineStrip.SlideSlot>
+{
+	private static final long serialVersionUID = 1L;
+	
+	/** size of a slide button */
+	public static final int thumbWidth = 290, thumbHeight = 170;
+	
+	/** space around each slide button */
+	public static final int thumbInset = 20;
+	
+	/** size of a transition button */
+	public static final int transWidth = 100, transHeight = 75;
+	
+	/** width one slide and the transition after it take up */
+	public static final int slideSpan = thumbInset + thumbWidth + thumbInset + transWidth;
+	
+	/** slides past each edge of the view that keep their buttons, so slow scrolling doesn't make new ones every step */
+	private static final int overscan = 2;
+	
+	/**
+	 * what happens when the buttons are clicked
+	 */
+	public interface Listener {
+		/**
+		 * the slide button at index was clicked
+		 */
+		void slideClicked(int index);
+		
+		/**
+		 * the transition button after the slide at index was clicked
+		 */
+		void transitionClicked(int index, JButton button);
+	}
+	
+	/**
+	 * a slide button and the transition button after it, shown for whichever slide it's bound to
+	 */
+	class SlideSlot extends SlotPanel.Slot
+	{
+		private final JToggleButton thumbButton;
+		private final JButton transButton;
+		
+		/**
+		 * SlideSlot - makes the buttons once. Binding changes what they show
+		 */
+		private SlideSlot()
+		{
+			thumbButton = new JToggleButton();
+			thumbButton.setRolloverEnabled(true);
+			thumbButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+			thumbButton.setBorder(BorderFactory.createEmptyBorder());
+			thumbButton.setFocusable(false);
+			thumbButton.setContentAreaFilled(false);
+			thumbButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					//clicking the selected slide would untoggle it, so it stays selected
+					thumbButton.setSelected(index == selectedIndex);
+					if (index >= 0)
+						listener.slideClicked(index);
+				}
+			});
+			
+			transButton = new JButton();
+			transButton.setRolloverEnabled(true);
+			transButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+			transButton.setBorder(BorderFactory.createEmptyBorder());
+			transButton.setFocusable(false);
+			transButton.setContentAreaFilled(false);
+			transButton.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					if (index >= 0)
+						listener.transitionClicked(index, transButton);
+				}
+			});
+			
+			add(thumbButton);
+			add(transButton);
+		}
+		
+		/**
+		 * shows the slide at index i and moves the buttons to its spot
+		 */
+		@Override
+		protected void bind(int i)
+		{
+			index = i;
+			Thumbnail thumb = timeline.thumbnailsList.getThumbnail(i);
+			thumbButton.setIcon(new ImageIcon(thumb.getImageTimeline()));
+			ImageIcon thumbHover = HoverIconCache.singleton.getTimelineHover(thumb);
+			thumbButton.setRolloverIcon(thumbHover);
+			thumbButton.setPressedIcon(thumbHover);
+			thumbButton.setSelectedIcon(thumbHover);
+			updateSelected();
+			
+			Transition trans = timeline.transitionsList.getTransition(i);
+			transButton.setIcon(SceneHandler.singleton.transitionImages.get(trans.getTransitionType()));
+			ImageIcon transHover = SceneHandler.singleton.transitionHoverImages.get(trans.getTransitionType());
+			transButton.setRolloverIcon(transHover);
+			transButton.setPressedIcon(transHover);
+			
+			int x = i * slideSpan;
+			thumbButton.setBounds(x + thumbInset, thumbInset, thumbWidth, thumbHeight);
+			transButton.setBounds(x + thumbInset + thumbWidth + thumbInset, thumbInset + (thumbHeight - transHeight) / 2, transWidth, transHeight);
+			thumbButton.setVisible(true);
+			transButton.setVisible(true);
+		}
+		
+		/**
+		 * highlights the slide button if its slide is the selected one
+		 */
+		private void updateSelected()
+		{
+			boolean selected = index == selectedIndex;
+			thumbButton.setSelected(selected);
+			thumbButton.setBorder(selected ? new LineBorder(SliderColor.aqua, 3) : BorderFactory.createEmptyBorder());
+		}
+		
+		/**
+		 * hides the buttons until the slot is bound again
+		 */
+		@Override
+		protected void unbind()
+		{
+			index = -1;
+			thumbButton.setVisible(false);
+			transButton.setVisible(false);
+		}
+	}
+	
+	/** slides and transitions shown */
+	private Timeline timeline;
+	
+	/** told about clicks */
+	private final Listener listener;
+	
+	/** index of the highlighted slide, -1 if none */
+	private int selectedIndex = -1;
+	
+	/**
+	 * TimelineStrip - makes an empty strip
+	 * @param listener told when buttons are clicked
+	 */
+	public TimelineStrip(Listener listener)
+	{
+		this.listener = listener;
+		setLayout(null);
+		setBackground(SliderColor.light_gray);
+	}
+	
+	/**
+	 * setTimeline - shows the timeline given, rebinding the visible buttons to it
+	 * @param timeline timeline to show
+	 */
+	public void setTimeline(Timeline timeline)
+	{
+		this.timeline = timeline;
+		refresh();
+	}
+	
+	/**
+	 * refresh - rebinds every visible button, for when slides or transitions changed in a way the strip wasn't told about
+	 */
+	public void refresh()
+	{
+		if (selectedIndex >= getSlideCount())
+			selectedIndex = -1;
+		unbindFrom(0);
+		sizeChanged();
+	}
+	
+	/**
+	 * swapped - shows that the slides at the two indices traded places
+	 * @param a index of one slide
+	 * @param b index of the other slide
+	 */
+	public void swapped(int a, int b)
+	{
+		if (selectedIndex == a)
+			selectedIndex = b;
+		else if (selectedIndex == b)
+			selectedIndex = a;
+		rebind(a);
+		rebind(b);
+		repaint();
+	}
+	
+	/**
+	 * removed - shows that the slide at index was taken out, pulling the ones after it back
+	 * @param index where the slide was
+	 */
+	public void removed(int index)
+	{
+		if (selectedIndex == index)
+			selectedIndex = -1;
+		else if (selectedIndex > index)
+			selectedIndex--;
+		unbindFrom(index);
+		sizeChanged();
+	}
+	
+	/**
+	 * setSelectedIndex - highlights the slide at index and nothing else
+	 * @param index slide to highlight, -1 for none
+	 */
+	public void setSelectedIndex(int index)
+	{
+		selectedIndex = index;
+		for (SlideSlot slot : getBoundSlots())
+			slot.updateSelected();
+	}
+	
+	public int getSelectedIndex() {
+		return selectedIndex;
+	}
+	
+	/**
+	 * scrollToSlide - scrolls so the slide at index can be seen
+	 * @param index slide to show
+	 */
+	public void scrollToSlide(int index)
+	{
+		scrollRectToVisible(new Rectangle(index * slideSpan, 0, slideSpan + thumbInset, getHeight()));
+	}
+	
+	/**
+	 * binds buttons to the slides that can be seen and frees the rest. Run whenever the view scrolls or resizes
+	 */
+	@Override
+	public void updateVisibleSlots()
+	{
+		int count = getSlideCount();
+		Rectangle view = getVisibleRect();
+		int first = 0;
+		int last = -1;
+		if (count > 0 && !view.isEmpty())
+		{
+			first = Math.max(view.x / slideSpan - overscan, 0);
+			last = Math.min((view.x + view.width) / slideSpan + overscan, count - 1);
+		}
+		
+		bindRange(first, last);
+	}
+	
+	/**
+	 * as wide as all the slides, with the space at the end the old grid had
+	 */
+	@Override
+	public Dimension getPreferredSize()
+	{
+		int count = getSlideCount();
+		return new Dimension(count * slideSpan + (count > 0 ? thumbInset : 0), thumbInset + thumbHeight + thumbInset);
+	}
+	
+	/**
+	 * number of slides in the timeline, 0 if there's no timeline yet
+	 */
+	private int getSlideCount()
+	{
+		return timeline == null ? 0 : timeline.thumbnailsList.getSize();
+	}
+	
+	/**
+	 * makes a slide and transition button the first time there isn't a spare one
+	 */
+	@Override
+	protected SlideSlot createSlot()
+	{
+		return new SlideSlot();
+	}
+	
+	/**
+	 * lays the strip out again at its new length
+	 */
+	private void sizeChanged()
+	{
+		revalidate();
+		updateVisibleSlots();
+		repaint();
+	}
+}
@@ -17,11 +17,9 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
 import java.io.File;
 
 import javax.swing.BorderFactory;
@@ -247,8 +245,9 @@ public class TransitionPane extends FloatingPane {
 		crossButton.setContentAreaFilled(false);
 		crossButton.setToolTipText("Cross Dissolve");
 		crossButton.setFocusable(false);
-		crossButton.setRolloverIcon(new ImageIcon(ImageHover(cross.getImage())));
-		crossButton.setSelectedIcon(new ImageIcon(ImageHover(cross.getImage())));
+		ImageIcon crossHover = new ImageIcon(ImageEffects.fill(cross.getImage(), SliderColor.hover_beige));
+		crossButton.setRolloverIcon(crossHover);
+		crossButton.setSelectedIcon(crossHover);
 		
 		// Create right button
 		rightButton = new JToggleButton(right);
@@ -257,8 +256,9 @@ public class TransitionPane extends FloatingPane {
 		rightButton.setContentAreaFilled(false);
 		rightButton.setToolTipText("Wipe Right");
 		rightButton.setFocusable(false);
-		rightButton.setRolloverIcon(new ImageIcon(ImageHover(right.getImage())));
-		rightButton.setSelectedIcon(new ImageIcon(ImageHover(right.getImage())));
+		ImageIcon rightHover = new ImageIcon(ImageEffects.fill(right.getImage(), SliderColor.hover_beige));
+		rightButton.setRolloverIcon(rightHover);
+		rightButton.setSelectedIcon(rightHover);
 		
 		// Create left button
 		leftButton = new JToggleButton(left);
@@ -267,8 +267,9 @@ public class TransitionPane extends FloatingPane {
 		leftButton.setContentAreaFilled(false);
 		leftButton.setToolTipText("Wipe Left");
 		leftButton.setFocusable(false);
-		leftButton.setRolloverIcon(new ImageIcon(ImageHover(left.getImage())));
-		leftButton.setSelectedIcon(new ImageIcon(ImageHover(left.getImage())));
+		ImageIcon leftHover = new ImageIcon(ImageEffects.fill(left.getImage(), SliderColor.hover_beige));
+		leftButton.setRolloverIcon(leftHover);
+		leftButton.setSelectedIcon(leftHover);
 		
 		// Create up button
 		upButton = new JToggleButton(up);
@@ -277,8 +278,9 @@ public class TransitionPane extends FloatingPane {
 		upButton.setContentAreaFilled(false);
 		upButton.setToolTipText("Wipe Up");
 		upButton.setFocusable(false);
-		upButton.setRolloverIcon(new ImageIcon(ImageHover(up.getImage())));
-		upButton.setSelectedIcon(new ImageIcon(ImageHover(up.getImage())));
+		ImageIcon upHover = new ImageIcon(ImageEffects.fill(up.getImage(), SliderColor.hover_beige));
+		upButton.setRolloverIcon(upHover);
+		upButton.setSelectedIcon(upHover);
 		
 		// Create down button
 		downButton = new JToggleButton(down);
@@ -287,8 +289,9 @@ public class TransitionPane extends FloatingPane {
 		downButton.setContentAreaFilled(false);
 		downButton.setToolTipText("Wipe Down");
 		downButton.setFocusable(false);
-		downButton.setRolloverIcon(new ImageIcon(ImageHover(down.getImage())));
-		downButton.setSelectedIcon(new ImageIcon(ImageHover(down.getImage())));
+		ImageIcon downHover = new ImageIcon(ImageEffects.fill(down.getImage(), SliderColor.hover_beige));
+		downButton.setRolloverIcon(downHover);
+		downButton.setSelectedIcon(downHover);
 		
 		// Create slow button
 		slowButton = new JToggleButton(slow);
@@ -488,33 +491,6 @@ public class TransitionPane extends FloatingPane {
 		LoadTransitionSettings();
 	}
 	
-    /**
-     * ImageHover() - darkens the image so that it adds a hovered effect
-     * @param thumbnail - the thumbnail image that needs to be processed
-	 * 
-	 * @author Fernando Palacios
-     */
-    private Image ImageHover(Image thumbnail) {
-        Image img = thumbnail;
-
-        BufferedImage buffered = new BufferedImage(img.getWidth(null),
-        img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
-        buffered.getGraphics().drawImage(img, 0, 0, null);
-
-        for (int i = 0; i < buffered.getWidth(); i++) {
-            for (int j = 0; j < buffered.getHeight(); j++) {                    
-                int rgb = buffered.getRGB(i, j);
-                int alpha = (rgb >> 24) & 0x000000FF;
-                Color c = new Color(rgb);
-                if (alpha != 0) {
-                    c = new Color(217, 202, 192);
-                    buffered.setRGB(i, j, c.getRGB());
-                }
-            }
-        }
-        return buffered;
-    }
-    
     /**
      * UpdateTransitionSettings() - Updates the transition type AND/OR length when user saves changes
 	 * 
@@ -0,0 +1,116 @@
+/**
+ * WaveformView.java
+ * Shows an audio track under the arrange scene's timeline as its waveform with its name over it, drawn at the timeline's
+ * scale from the track's cached peaks
+ * 
+ * Slideshow Creator
+ */
+
+package creator;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.io.File;
+
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+
+import core.Audio;
+import core.SliderColor;
+import core.WaveformCache;
+import core.WaveformLoadListener;
+import core.WaveformPeaks;
+
+public class WaveformView extends JComponent implements WaveformLoadListener
+{
+	private static final long serialVersionUID = 1L;
+	
+	/** color the waveform is drawn in, a darker aqua so the name stays readable over it */
+	private static final Color waveColor = new Color(92, 160, 162);
+	
+	/** space between the left edge and the name */
+	private static final int nameInset = 4;
+	
+	/** file the waveform is of */
+	private final File audioFile;
+	
+	/** name shown over the waveform */
+	private final String name;
+	
+	/** how many pixels a second of audio takes on the timeline */
+	private final float pixelsPerSecond;
+	
+	/** the track's peaks, null until they're loaded */
+	private WaveformPeaks peaks;
+	
+	/** lowest and highest sample under each pixel being painted, reused between paints of the same width */
+	private byte[] mins = new byte[0], maxes = new byte[0];
+	
+	/**
+	 * WaveformView - creates a view of an audio track. Its peaks load in the background if they aren't cached yet
+	 * @param audio the track
+	 * @param pixelsPerSecond how many pixels a second of audio takes, so the waveform lines up with the timeline
+	 */
+	public WaveformView(Audio audio, float pixelsPerSecond)
+	{
+		audioFile = new File(audio.getAudioPath());
+		name = audio.getAudioName();
+		this.pixelsPerSecond = pixelsPerSecond;
+		setOpaque(true);
+		setBackground(SliderColor.aqua);
+		setForeground(SliderColor.dark_gray);
+		//same font the track name used to be shown in
+		setFont(UIManager.getFont("TextField.font"));
+		setToolTipText(name);
+		peaks = WaveformCache.singleton.get(audioFile, this);
+	}
+	
+	@Override
+	public void notifyOfWaveformLoaded(File audioFile, WaveformPeaks peaks)
+	{
+		this.peaks = peaks;
+		repaint();
+	}
+	
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		int width = getWidth();
+		int height = getHeight();
+		//a long track is far wider than what's scrolled into view, so only the columns being repainted are drawn
+		Rectangle clip = g.getClipBounds();
+		if (clip == null)
+			clip = new Rectangle(0, 0, width, height);
+		int clipStart = Math.max(0, clip.x);
+		int clipEnd = Math.min(width, clip.x + clip.width);
+		g.setColor(getBackground());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		
+		if (peaks != null && pixelsPerSecond > 0 && clipEnd > clipStart)
+		{
+			if (mins.length != clipEnd - clipStart)
+			{
+				mins = new byte[clipEnd - clipStart];
+				maxes = new byte[clipEnd - clipStart];
+			}
+			int filledPixels = peaks.getPeaks(clipStart / (double) pixelsPerSecond, 1.0 / pixelsPerSecond, mins, maxes);
+			
+			//samples run from -128 to 127, so scale them to half the height either side of the middle
+			int middle = height / 2;
+			g.setColor(waveColor);
+			for (int i = 0; i < filledPixels; i++)
+			{
+				int top = middle - maxes[i] * middle / 128;
+				int bottom = middle - mins[i] * middle / 128;
+				g.drawLine(clipStart + i, top, clipStart + i, Math.max(top, bottom));
+			}
+		}
+		
+		g.setFont(getFont());
+		g.setColor(getForeground());
+		FontMetrics metrics = g.getFontMetrics();
+		g.drawString(name, nameInset, (height - metrics.getHeight()) / 2 + metrics.getAscent());
+	}
+}
@@ -1,9 +1,17 @@
 package pkgImageTransitions;
 
-import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.swing.JPanel;
 
+import core.SliderColor;
+import core.Thumbnail;
+import core.TransitionFrameCache;
+
 //==========================================================================================
 // abstract class Transition
 // Define the parent class that all image transitions will extend.  This way new transitions
@@ -41,8 +49,11 @@ public class ColemanTransition
 	
 	//--------------------------------------------------------
 	/** Perform the transition from one image to another */
-	// All subclasses must override this.  This only does
-	//  an instant switch from one to the other
+	// Subclasses don't override this, they override renderFrame.
+	//  One frame clock hands out the progress of each frame so
+	//  every transition takes exactly the time asked, dropping
+	//  frames if a machine can't keep up. Frames are drawn
+	//  straight onto the panel's transition surface
 	// Args:  
 	//  imgPanel - Panel the images are drawn into
 	//	ImageA - Current Image on the screen
@@ -51,13 +62,194 @@ public class ColemanTransition
 	//---------------------------------------------------------
 	public void DrawImageTransition(JPanel imgPanel, BufferedImage ImageA, BufferedImage ImageB, double time)
 	{
-		// Get all the graphics objects
-		Graphics gPan = imgPanel.getGraphics();
-		Graphics gA = ImageA.getGraphics();
+		int width = imgPanel.getWidth();
+		int height = imgPanel.getHeight();
+		fitBufferA = fitToPanel(ImageA, fitBufferA, width, height);
+		fitBufferB = fitToPanel(ImageB, fitBufferB, width, height);
+		frameImageA = ImageA.getWidth() == width && ImageA.getHeight() == height ? ImageA : fitBufferA;
+		frameImageB = ImageB.getWidth() == width && ImageB.getHeight() == height ? ImageB : fitBufferB;
+		
+		playFrames(imgPanel, time, framePainter);
+		
+		//don't hold on to the slides
+		frameImageA = null;
+		frameImageB = null;
+	}
+	
+	//--------------------------------------------------------
+	/** Replay frames of this transition rendered ahead of time */
+	// Runs on the same frame clock as DrawImageTransition so
+	//  frame i of the rendered frames is drawn for step i.
+	//  Nothing is rendered here, each frame is just copied
+	//  onto the transition surface
+	// Args:  
+	//  imgPanel - Panel the frames are drawn into
+	//  frames - Frames rendered at the size of imgPanel with
+	//    a clock of the same length
+	//  time - Number of seconds to take to do this transition
+	//---------------------------------------------------------
+	public void PlayRenderedFrames(JPanel imgPanel, TransitionFrameCache.Frames frames, double time)
+	{
+		renderedFrames = frames;
+		try
+		{
+			playFrames(imgPanel, time, renderedFramePainter);
+		} finally
+		{
+			frames.release();
+			renderedFrames = null;
+		}
+	}
+	
+	/**
+	 * playFrames - draws frames on the panel's transition surface as the frame clock hands them out until the painter
+	 * says there are no more, the clock runs out, or the transition is aborted
+	 * @param imgPanel panel to draw on
+	 * @param time seconds the transition takes
+	 * @param painter draws the frame at currentProgress and currentStep
+	 */
+	private void playFrames(JPanel imgPanel, double time, TransitionSurface.FramePainter painter)
+	{
+		TransitionSurface surface = waitForSurface(imgPanel);
+		if (surface == null)
+			return;
+		FrameClock clock = new FrameClock(time, FrameClock.defaultFps, true);
+		lastClock = clock;
+		hasMoreFrames = true;
+		while (hasMoreFrames && !isAborting())
+		{
+			try
+			{
+				currentProgress = clock.nextFrame();
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+			if (currentProgress < 0)
+				break;
+			currentStep = Math.round(currentProgress * clock.getStepCount());
+			
+			long frameStart = System.nanoTime();
+			surface.present(painter);
+			clock.frameDrawn(System.nanoTime() - frameStart);
+		}
+		
+		if (!isAborting() && clock.getDroppedFrames() > 0)
+			System.out.println(getClass().getSimpleName() + " couldn't keep up: " + clock.getSummary());
+	}
+	
+	/**
+	 * waitForSurface - has the event thread attach the panel's transition surface and waits for it. Keeps checking for
+	 * an abort while waiting, since the event thread may itself be waiting for this transition to stop
+	 * @param imgPanel panel to draw on
+	 * @return the surface, or null if aborted or interrupted first
+	 */
+	private TransitionSurface waitForSurface(JPanel imgPanel)
+	{
+		Future<TransitionSurface> attaching = TransitionSurface.attach(imgPanel);
+		while (!isAborting())
+		{
+			try
+			{
+				return attaching.get(10, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e)
+			{
+				//check for an abort and keep waiting
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e)
+			{
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		attaching.cancel(false);
+		return null;
+	}
+	
+	//--------------------------------------------------------
+	/** Draw one whole frame of the transition */
+	// Only depends on its arguments so frames can be drawn in
+	//  any order, like when rendering to a file. The default
+	//  is an instant switch from one image to the other
+	// Args:  
+	//  progress - How far along the transition is, 0 is all
+	//    ImageA and 1 is all ImageB
+	//  target - Graphics of the frame to draw into
+	//	ImageA - Image transitioning from, the size of the frame
+	//  ImageB - Image transitioning to, the size of the frame
+	//  width, height - Size of the frame
+	// Returns whether frames after this one would look any
+	//  different
+	//---------------------------------------------------------
+	public boolean renderFrame(float progress, Graphics2D target, BufferedImage ImageA, BufferedImage ImageB, int width, int height)
+	{
+		target.drawImage(ImageB, 0, 0, null);
+		return false;
+	}
+	
+	/** A and B fitted to the panel for the transition playing now */
+	private BufferedImage frameImageA, frameImageB;
+	
+	/** buffers to letterbox A and B into when they aren't the size of the panel. Kept for the next transition */
+	private BufferedImage fitBufferA, fitBufferB;
+	
+	/** progress of the frame being drawn */
+	private float currentProgress;
+	
+	/** step of the frame clock the frame being drawn is for */
+	private int currentStep;
+	
+	/** frames being replayed now */
+	private TransitionFrameCache.Frames renderedFrames;
+	
+	/** whether the last frame drawn said there were more to come */
+	private boolean hasMoreFrames;
+	
+	/** clock of the last transition played, with its frame timings */
+	private FrameClock lastClock;
+	
+	public FrameClock getLastClock() {
+		return lastClock;
+	}
+	
+	/** draws the current frame. Made once so presenting a frame doesn't make anything */
+	private final TransitionSurface.FramePainter framePainter = new TransitionSurface.FramePainter() {
+		@Override
+		public void paintFrame(Graphics2D g, int width, int height) {
+			hasMoreFrames = renderFrame(currentProgress, g, frameImageA, frameImageB, width, height);
+		}
+	};
+	
+	/** draws the rendered frame for the current step. Frames stop early once the rest would all look the same */
+	private final TransitionSurface.FramePainter renderedFramePainter = new TransitionSurface.FramePainter() {
+		@Override
+		public void paintFrame(Graphics2D g, int width, int height) {
+			int last = renderedFrames.getFrameCount() - 1;
+			renderedFrames.drawFrame(Math.min(currentStep, last), g);
+			hasMoreFrames = currentStep < last;
+		}
+	};
+	
+	/**
+	 * fitToPanel - letterboxes the image into a buffer the size of the panel if it isn't that size already
+	 * @param image image to fit
+	 * @param buffer buffer from last time, or null
+	 * @param width width of the panel
+	 * @param height height of the panel
+	 * @return buffer with the image letterboxed in it, or the old buffer if the image didn't need it
+	 */
+	private static BufferedImage fitToPanel(BufferedImage image, BufferedImage buffer, int width, int height)
+	{
+		if (image.getWidth() == width && image.getHeight() == height)
+			return buffer;
 		
-		// Default just copy ImageB into ImageA then copy to screen
-	    gA.drawImage(ImageB, 0, 0, null);
-	    gPan.drawImage(ImageA, 0, 0, imgPanel);
+		if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height)
+			buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Thumbnail.drawImageFillImage(image, buffer, SliderColor.dark_gray);
+		return buffer;
 	}
 
 }
@@ -0,0 +1,198 @@
+/**
+ * FrameClock.java
+ * Hands out the progress of each frame of a transition so it takes exactly as long as asked on any machine
+ * 
+ * Slideshow Creator
+ */
+
+package pkgImageTransitions;
+
+import java.util.Arrays;
+
+public class FrameClock
+{
+	/** frames per second transitions play at */
+	public static final int defaultFps = 60;
+	
+	/** how long before a deadline to stop sleeping and start yielding, since sleep can overshoot by a millisecond or two */
+	private static final long spinNanos = 2000000;
+	
+	/** whether frames wait on the real clock. Otherwise every step is handed out right away, like for rendering to a file */
+	private final boolean realTime;
+	
+	/** how long the whole transition takes */
+	private final long durationNanos;
+	
+	/** time between frames */
+	private final long frameNanos;
+	
+	/** number of steps after step 0. The last one is progress 1 */
+	private final int stepCount;
+	
+	/** System.nanoTime of step 0, set on the first frame */
+	private long startNanos;
+	
+	/** step the last frame was for, -1 before the first frame */
+	private int step = -1;
+	
+	/** steps skipped because the frame before took too long. The frame before stayed up in their place */
+	private int droppedFrames = 0;
+	
+	/** how long each frame took to draw, in order */
+	private long[] frameTimes;
+	
+	/** number of frames drawn */
+	private int framesDrawn = 0;
+	
+	/**
+	 * FrameClock - makes a clock for a transition
+	 * @param seconds how long the transition takes
+	 * @param fps frames per second to aim for
+	 * @param realTime true to wait on the real clock and drop frames to keep up, false to hand out every step right away
+	 */
+	public FrameClock(double seconds, int fps, boolean realTime)
+	{
+		this.realTime = realTime;
+		this.durationNanos = Math.max((long) (seconds * 1000000000L), 0);
+		this.frameNanos = 1000000000L / Math.max(fps, 1);
+		this.stepCount = (int) Math.max((durationNanos + frameNanos - 1) / frameNanos, 1);
+		frameTimes = new long[stepCount + 1];
+	}
+	
+	/**
+	 * nextFrame - waits until the next frame is due and says how far along the transition it is. If the last frame ran
+	 * past one or more steps those steps are dropped so the transition still ends on time
+	 * @return progress from 0 to 1 of the frame to draw, or -1 once the frame at 1 has been handed out
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public float nextFrame() throws InterruptedException
+	{
+		if (step >= stepCount)
+			return -1;
+		
+		if (step < 0)
+		{
+			startNanos = System.nanoTime();
+			step = 0;
+			return 0;
+		}
+		
+		int nextStep = step + 1;
+		if (realTime)
+		{
+			long now = System.nanoTime();
+			int dueStep = (int) Math.min((now - startNanos) / frameNanos, stepCount);
+			if (dueStep > nextStep)
+			{
+				//running behind. Skip to the step that's due now
+				droppedFrames += dueStep - nextStep;
+				nextStep = dueStep;
+			}
+			else waitUntil(startNanos + nextStep * frameNanos);
+		}
+		
+		step = nextStep;
+		return getProgress(step);
+	}
+	
+	/**
+	 * records how long the frame just handed out took to draw
+	 * @param drawNanos nanoseconds it took
+	 */
+	public void frameDrawn(long drawNanos)
+	{
+		if (framesDrawn == frameTimes.length)
+			frameTimes = Arrays.copyOf(frameTimes, frameTimes.length * 2);
+		frameTimes[framesDrawn++] = drawNanos;
+	}
+	
+	/**
+	 * getProgress - how far along the transition a step is
+	 * @param step step from 0 to the step count
+	 * @return progress from 0 to 1
+	 */
+	private float getProgress(int step)
+	{
+		if (step >= stepCount || durationNanos == 0)
+			return 1f;
+		return (float) ((double) step * frameNanos / durationNanos);
+	}
+	
+	/**
+	 * waits until the deadline. Sleeps most of the way then yields for the last bit so the frame isn't late from
+	 * sleep overshooting
+	 * @param deadline System.nanoTime to wait until
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static void waitUntil(long deadline) throws InterruptedException
+	{
+		long remaining = deadline - System.nanoTime();
+		if (remaining > spinNanos)
+		{
+			long sleepNanos = remaining - spinNanos;
+			Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+		}
+		while (System.nanoTime() - deadline < 0)
+			Thread.yield();
+	}
+	
+	public int getStepCount() {
+		return stepCount;
+	}
+	
+	public int getFramesDrawn() {
+		return framesDrawn;
+	}
+	
+	public int getDroppedFrames() {
+		return droppedFrames;
+	}
+	
+	public double getTargetFrameMillis() {
+		return frameNanos / 1e6;
+	}
+	
+	/**
+	 * getFrameTimesMillis - how long each frame took to draw
+	 * @return milliseconds for each frame drawn, in order
+	 */
+	public double[] getFrameTimesMillis()
+	{
+		double[] millis = new double[framesDrawn];
+		for (int i = 0; i < framesDrawn; i++)
+			millis[i] = frameTimes[i] / 1e6;
+		return millis;
+	}
+	
+	public double getAverageFrameMillis() {
+		long total = 0;
+		for (int i = 0; i < framesDrawn; i++)
+			total += frameTimes[i];
+		return framesDrawn > 0 ? total / 1e6 / framesDrawn : 0;
+	}
+	
+	/**
+	 * getPercentileFrameMillis - how long frames took to draw at the percentile
+	 * @param percentile from 0 to 100
+	 * @return milliseconds that the percentile of frames finished within
+	 */
+	public double getPercentileFrameMillis(double percentile)
+	{
+		if (framesDrawn == 0)
+			return 0;
+		long[] sorted = Arrays.copyOf(frameTimes, framesDrawn);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100 * framesDrawn) - 1;
+		return sorted[Math.min(Math.max(index, 0), framesDrawn - 1)] / 1e6;
+	}
+	
+	/**
+	 * getSummary - one line about how the frames went
+	 * @return frames drawn, dropped, and frame times against the target
+	 */
+	public String getSummary()
+	{
+		return String.format("%d frames drawn, %d dropped, average %.2fms, 95th percentile %.2fms, max %.2fms, target %.2fms",
+				framesDrawn, droppedFrames, getAverageFrameMillis(), getPercentileFrameMillis(95), getPercentileFrameMillis(100), getTargetFrameMillis());
+	}
+}
@@ -163,6 +163,8 @@ public class ImagePanel extends JPanel
 		
 		// Do random transition taking 2.0 seconds
 		m_vTransitions.elementAt(transIdx).DrawImageTransition(this, m_CurrentImage, m_NextImage, 2.0);
+		// Transitions leave A alone so move m_NextImage into m_CurrentImage for next time
+		m_CurrentImage.getGraphics().drawImage(m_NextImage, 0, 0, null);
 		// For testing a single transition comment out the above line and put the appropriate
 		//   index in the vector of transitions in the call to m_vTransitions.elemantAt(i)
 //		m_vTransitions.elementAt(5).DrawImageTransition(this, m_CurrentImage, m_NextImage, 2.0);  
@@ -0,0 +1,181 @@
+/**
+ * TransitionSurface.java
+ * Canvas that transitions draw straight onto and flip, skipping Swing layout and the repaint queue
+ * 
+ * Slideshow Creator
+ */
+
+package pkgImageTransitions;
+
+import java.awt.BorderLayout;
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+import core.ImageScaler;
+import core.SliderColor;
+
+public class TransitionSurface extends Canvas
+{
+	private static final long serialVersionUID = 1L;
+	
+	/** something that draws one whole frame */
+	public interface FramePainter {
+		void paintFrame(Graphics2D g, int width, int height);
+	}
+	
+	/** key to keep the surface on its panel with */
+	private static final String clientPropertyKey = "TransitionSurface";
+	
+	/** back and front buffers. Null until the canvas is on screen. Not guarded by a lock since removeNotify runs under
+	 * the AWT tree lock */
+	private volatile BufferStrategy strategy;
+	
+	/** frame drawn to when there's no screen to flip to, like when running headless */
+	private BufferedImage offscreenFrame;
+	
+	private TransitionSurface()
+	{
+		//frames are only ever drawn by present
+		setIgnoreRepaint(true);
+		setBackground(SliderColor.dark_gray);
+	}
+	
+	/**
+	 * attach - puts the panel's surface in place of everything on it and sizes it to fill the panel. Makes the surface
+	 * the first time, then reuses it. The panel is only changed on the Swing event thread so it never races the scene
+	 * rebuilding it. Runs right away if called from there, otherwise it's queued
+	 * @param panel panel to show transitions on
+	 * @return the panel's surface once it's attached. Cancel it to drop the attach if it hasn't run yet
+	 */
+	public static Future<TransitionSurface> attach(final JPanel panel)
+	{
+		FutureTask<TransitionSurface> task = new FutureTask<TransitionSurface>(new Callable<TransitionSurface>() {
+			@Override
+			public TransitionSurface call() {
+				return attachNow(panel);
+			}
+		});
+		if (SwingUtilities.isEventDispatchThread())
+			task.run();
+		else SwingUtilities.invokeLater(task);
+		return task;
+	}
+	
+	/**
+	 * does the work of attach on the event thread
+	 */
+	private static TransitionSurface attachNow(JPanel panel)
+	{
+		TransitionSurface surface = (TransitionSurface) panel.getClientProperty(clientPropertyKey);
+		if (surface == null)
+		{
+			surface = new TransitionSurface();
+			panel.putClientProperty(clientPropertyKey, surface);
+		}
+		
+		Dimension size = panel.getSize();
+		if (surface.getParent() != panel)
+		{
+			panel.removeAll();
+			if (panel.getLayout() instanceof BorderLayout)
+				panel.add(surface, BorderLayout.CENTER);
+			else panel.add(surface);
+		}
+		surface.setPreferredSize(size);
+		//size it now instead of waiting on the panel to lay out again
+		surface.setBounds(0, 0, size.width, size.height);
+		return surface;
+	}
+	
+	/**
+	 * present - has the painter draw a whole frame into the back buffer, then flips it onto the screen. Redraws if the
+	 * buffer gets lost along the way
+	 * @param painter draws the frame
+	 */
+	public void present(FramePainter painter)
+	{
+		int width = getWidth();
+		int height = getHeight();
+		if (width <= 0 || height <= 0)
+			return;
+		
+		BufferStrategy bs = getStrategy();
+		if (bs == null)
+		{
+			if (offscreenFrame == null || offscreenFrame.getWidth() != width || offscreenFrame.getHeight() != height)
+				offscreenFrame = ImageScaler.createCompatibleImage(width, height, false);
+			Graphics2D g = offscreenFrame.createGraphics();
+			try
+			{
+				painter.paintFrame(g, width, height);
+			} finally
+			{
+				g.dispose();
+			}
+			return;
+		}
+		
+		do
+		{
+			do
+			{
+				Graphics2D g = (Graphics2D) bs.getDrawGraphics();
+				try
+				{
+					painter.paintFrame(g, width, height);
+				} finally
+				{
+					g.dispose();
+				}
+			} while (bs.contentsRestored());
+			bs.show();
+		} while (bs.contentsLost());
+		
+		//push it to the screen now instead of whenever the window system gets to it
+		Toolkit.getDefaultToolkit().sync();
+	}
+	
+	/**
+	 * getOffscreenFrame - the last frame drawn when there was no screen to draw to
+	 * @return last frame, or null if every frame has gone to the screen
+	 */
+	public BufferedImage getOffscreenFrame()
+	{
+		return offscreenFrame;
+	}
+	
+	/**
+	 * getStrategy - gets the buffers, making them if the canvas just went on screen
+	 * @return buffer strategy, or null if the canvas isn't on a screen
+	 */
+	private BufferStrategy getStrategy()
+	{
+		if (strategy == null && !GraphicsEnvironment.isHeadless() && isDisplayable())
+		{
+			createBufferStrategy(2);
+			strategy = getBufferStrategy();
+		}
+		return strategy;
+	}
+	
+	/**
+	 * forgets the buffers when the canvas comes off screen since they go with it
+	 */
+	@Override
+	public void removeNotify()
+	{
+		super.removeNotify();
+		strategy = null;
+	}
+}
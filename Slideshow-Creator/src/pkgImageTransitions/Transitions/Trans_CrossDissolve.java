@@ -12,111 +12,124 @@
 
 package pkgImageTransitions.Transitions;
 
-import java.awt.Color;
-import java.awt.Graphics;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.RescaleOp;
+import java.awt.image.DataBufferInt;
 
-import javax.swing.ImageIcon;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
-
-import core.SliderColor;
-import core.Thumbnail;
 import pkgImageTransitions.ColemanTransition;
 
 public class Trans_CrossDissolve extends ColemanTransition
 {
-
-	/** How many time to fade between the images per second. Updates on the fly based on machine performance */
-	protected static int fps = 10;
+	/** A and B copied into int RGB buffers. Kept between transitions and only remade if the size changes */
+	private BufferedImage contImageA, contImageB;
+	
+	/** images last copied into contImageA and contImageB */
+	private BufferedImage lastSourceA, lastSourceB;
+	
+	/** the frame A and B are mixed into before it goes on the target */
+	private BufferedImage mixFrame;
+	
+	/** pixels of contImageA and contImageB */
+	private int[] pixelsA, pixelsB;
 	
 	//---------------------------------------------------
-	/** Perform the transition from one image to another */
-	// Args:  
-	//  imgPanel - Panel the images are drawn into
-	//	ImageA - Current Image on the screen
-	//  ImageB - Image to transition to
-	//  time - Number of seconds to take to do this transition
-	// Note both off screen BufferedImages have already been
-	// scaled to exactly fit in the area of the imgPanel
-	// Cross dissolves need to be more gradual, i.e. more
-	//   redraws with a smaller increment on the alpha
+	/** Draw one frame of A fading into B */
+	// Args: see ColemanTransition.renderFrame
+	// Nothing is allocated per frame. A and B are copied into
+	//   int RGB buffers on the first frame of a transition,
+	//   then each frame they are mixed into one buffer at an
+	//   alpha based on the progress and drawn to the target
 	//---------------------------------------------------------
-	public void DrawImageTransition(JPanel imgPanel, BufferedImage ImageA, BufferedImage ImageB, double time)
+	@Override
+	public boolean renderFrame(float progress, Graphics2D target, BufferedImage ImageA, BufferedImage ImageB, int width, int height)
 	{
-		Graphics gPan = imgPanel.getGraphics();
-
-		int numIterations = (int) (fps * time);
-		int timeMillis = (int) (time * 1000);
-		int timeInc = timeMillis / numIterations; // Milliseconds to pause each step
-		
-		//create an image A the size of the container
-		BufferedImage contImageA = new BufferedImage(imgPanel.getWidth(), imgPanel.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Thumbnail.drawImageFillImage(ImageA, contImageA, SliderColor.dark_gray);
-		
-		//create an image B the size of the container with solid background
-		BufferedImage contImageB = new BufferedImage(imgPanel.getWidth(), imgPanel.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Thumbnail.drawImageFillImage(ImageB, contImageB, SliderColor.dark_gray);
-
-		//draw transparent B onto A over and over again and repaint A
-		float alphaInc = 1.0f / numIterations;//amount to increase B's alpha each step
-		float bAlpha = alphaInc;//compounding amount of alpha for B
-		int avgElapsedTime = 0;//how much time each fade step takes on average
-		for(int i=0; i < numIterations; i++)
+		//the same image can be handed in again holding a different slide, so copy again at the start of each transition
+		if (progress == 0 || ImageA != lastSourceA || ImageB != lastSourceB || mixFrame == null
+				|| mixFrame.getWidth() != width || mixFrame.getHeight() != height)
 		{
-			if (isAborting())
-				break;
-			
-			long startTime = System.currentTimeMillis();
-			
-			//make image b more visible
-			
-			float[] scales = { 1.0f, 1.0f, 1.0f, bAlpha};
-			float[] offsets = new float[4];
-			RescaleOp rop = new RescaleOp(scales, offsets, null);
-			BufferedImage contImageBFiltered = rop.filter(contImageB, null);
-			
-			bAlpha += alphaInc;//increment image B's alpha over time
-			
-			//draw A onto the screen
-			BufferedImage contImageAStacked = (BufferedImage) Thumbnail.cloneImage(contImageA);
-			
-			//draw the transparent image B onto the screen more visible every loop
-			contImageAStacked.createGraphics().drawImage(contImageBFiltered, 0, 0, null);
-			
-			imgPanel.removeAll();
+			contImageA = copyToBuffer(ImageA, contImageA, width, height);
+			contImageB = copyToBuffer(ImageB, contImageB, width, height);
+			pixelsA = getPixels(contImageA);
+			pixelsB = getPixels(contImageB);
+			lastSourceA = ImageA;
+			lastSourceB = ImageB;
 			
-			imgPanel.add(new JLabel(new ImageIcon(contImageAStacked)));
-			imgPanel.revalidate();
-			
-			//pause for a bit
-			try 
-			{
-				int elapsedTime = (int) (System.currentTimeMillis() - startTime);
-				avgElapsedTime += elapsedTime;
-			    Thread.sleep(Math.max(timeInc - elapsedTime, 0));
-			} 
-			catch(InterruptedException ex) 
-			{
-			    Thread.currentThread().interrupt();
-			}
+			//only make a new frame if the size changed
+			mixFrame = makeBuffer(mixFrame, width, height);
 		}
 		
-		if (!isAborting())
+		mix(mixFrame, pixelsA, pixelsB, progress);
+		target.drawImage(mixFrame, 0, 0, null);
+		return progress < 1;
+	}
+	
+	/**
+	 * mix - mixes A and B into the frame at the alpha for how far along the transition is
+	 * Works straight on the pixels because software SrcOver compositing with an extra alpha is too slow to keep up
+	 * at 1080p
+	 * @param frame opaque int RGB frame to draw into
+	 * @param pixelsA pixels of the image fading out, the size of the frame
+	 * @param pixelsB pixels of the image fading in, the size of the frame
+	 * @param progress how far along the transition is from 0 to 1
+	 */
+	public static void mix(BufferedImage frame, int[] pixelsA, int[] pixelsB, float progress)
+	{
+		int weightB = Math.round(progress * 256);
+		int weightA = 256 - weightB;
+		int[] out = getPixels(frame);
+		
+		for (int i = 0; i < out.length; i++)
 		{
-			//adjust number of iterations to get a proper transition for next time
-			avgElapsedTime /= numIterations;
-			
-			int prevFps = fps;
-			
-			//set fps to how many frames of the average elapsed time will fit into one second
-			if (avgElapsedTime != 0)
-				fps = Math.min(Math.max(Math.round(1000 / avgElapsedTime), 5), 60);//limit framerate to between 5 and 60 fps
-			else fps = 60;//so fast that it didn't even take a full millisecond on average
-			
-			//System.out.println("timeInc: " + timeInc + " numIterations: " + numIterations + " avgElapsedTime: " + avgElapsedTime + "\nprevFps: " + prevFps + " fps: " + fps);
+			int a = pixelsA[i];
+			int b = pixelsB[i];
+			//red and blue together then green on its own, each with room for the weight in the bits above it
+			int rb = (((a & 0xFF00FF) * weightA + (b & 0xFF00FF) * weightB + 0x800080) >>> 8) & 0xFF00FF;
+			int g = (((a & 0xFF00) * weightA + (b & 0xFF00) * weightB + 0x8000) >>> 8) & 0xFF00;
+			out[i] = rb | g;
 		}
 	}
 	
+	/**
+	 * copyToBuffer - copies the image into an int RGB buffer of the size given
+	 * @param image image to copy, already the size of the frame
+	 * @param buffer buffer from last time, or null
+	 * @param width width of the frame
+	 * @param height height of the frame
+	 * @return buffer holding the image
+	 */
+	private static BufferedImage copyToBuffer(BufferedImage image, BufferedImage buffer, int width, int height)
+	{
+		buffer = makeBuffer(buffer, width, height);
+		Graphics2D g = buffer.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return buffer;
+	}
+	
+	/**
+	 * makeBuffer - gets an opaque int RGB image of the size given, reusing the old one if it's already that size
+	 * @param buffer buffer from last time, or null
+	 * @param width width of the buffer
+	 * @param height height of the buffer
+	 * @return buffer of width by height
+	 */
+	private static BufferedImage makeBuffer(BufferedImage buffer, int width, int height)
+	{
+		if (buffer != null && buffer.getWidth() == width && buffer.getHeight() == height)
+			return buffer;
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+	
+	/**
+	 * getPixels - gets the array behind an int RGB buffer this transition made. Only for its own buffers since taking
+	 * the array keeps Java2D from caching the image on the graphics card
+	 * @param buffer int RGB buffer
+	 * @return pixels of the buffer
+	 */
+	private static int[] getPixels(BufferedImage buffer)
+	{
+		return ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+	}
 }
@@ -11,6 +11,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 
 import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaEventListener;
+import javax.sound.midi.MetaMessage;
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.Sequence;
 import javax.sound.midi.Sequencer;
@@ -42,7 +44,7 @@ import javax.swing.border.BevelBorder;
 *  Date: January 2016
 */
 //=============================================================================
-public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
+public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener, MetaEventListener
 {
 	/** Parent JFrame */
 	private AudioDemoMain m_ParentFrame;
@@ -69,14 +71,17 @@ public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
 	/** Thread used by the audio file player */
 	private Thread m_PlayerThread;
 
-	// Some variables from Juke.java.  Not sure if they are really needed but
-	//   we define them for now just to adapt the code.
+	/** MIDI meta message type the sequencer sends when it reaches the end of the track */
+	private static final int endOfTrackType = 47;
+
+	// Some variables from Juke.java. Guarded by this so the player thread can wait on them
+	//   instead of checking them every 99ms
     boolean midiEOM = false;
     boolean audioEOM = false;
     boolean bump = false;
 
     /** Flag if we are paused (for clips only???) */
-    boolean m_bPaused = false;	
+    volatile boolean m_bPaused = false;	
 
 	//---------------------------------------------------
 	// Default constructor
@@ -103,7 +108,7 @@ public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
         	ex.printStackTrace(); 
         	return; 
         }
-//        sequencer.addMetaEventListener(this);
+        sequencer.addMetaEventListener(this);
         
         // Create the thread for this player
 		m_PlayerThread = new Thread(this);
@@ -296,23 +301,17 @@ public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
  //       playbackMonitor.start();
  //       setGain();
  //       setPan();
-        midiEOM = audioEOM = bump = false;
+        synchronized (this)
+        {
+        	midiEOM = audioEOM = bump = false;
+        }
         if (m_CurrentSound instanceof Sequence || 
         		m_CurrentSound instanceof BufferedInputStream && m_PlayerThread != null) 
         {
         	System.out.println("playAudioFile starting the sequencer.");
             sequencer.start();
-            while (!midiEOM && m_PlayerThread != null && !bump) 
-            {
-                try 
-                { 
-                	m_PlayerThread.sleep(99); 
-                } 
-                catch (Exception e) 
-                {
-                	break;
-                }
-            }
+            //sleeps until the end of track meta event or stopPlaying wakes it
+            waitForEnd();
         	System.out.println("playAudioFile stopping the sequencer.");
             sequencer.stop();
             sequencer.close();
@@ -322,24 +321,8 @@ public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
         	System.out.println("playAudioFile is creating a clip.");
            Clip clip = (Clip) m_CurrentSound;
             clip.start();
-            try 
-            { 
-            	m_PlayerThread.sleep(99); 
-//            	thread.sleep(99); 
-            } 
-            catch (Exception e) 
-            { }
-            while ((m_bPaused || clip.isActive()) && m_PlayerThread != null && !bump) 
-            {
-                try 
-                { 
-                	m_PlayerThread.sleep(99); 
-                } 
-                catch (Exception e) 
-                {
-                	break;
-                }
-            }
+            //sleeps until the clip's STOP event at the end of the sound wakes it. Pausing doesn't end it
+            waitForEnd();
         	System.out.println("playAudioFile is stopping a clip.");
             clip.stop();
             clip.close();
@@ -399,6 +382,24 @@ public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
  */
 	}
 	
+	//----------------------------------------------------------------
+	/** Wait until the track ends or is stopped, without waking up until then */
+	//----------------------------------------------------------------
+	private synchronized void waitForEnd()
+	{
+		while (!midiEOM && !audioEOM && !bump) 
+		{
+			try 
+			{ 
+				wait(); 
+			} 
+			catch (InterruptedException e) 
+			{
+				break;
+			}
+		}
+	}
+	
 	/* need to add this somewhere after playing
 	    if (sequencer != null) 
         {
@@ -456,6 +457,11 @@ public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
             ((Clip) m_CurrentSound).close();
         }
         m_CurrentSound = null;
+        synchronized (this)
+        {
+        	bump = true;
+        	notifyAll();
+        }
     }
 	
 	//----------------------------------------------------------------
@@ -463,12 +469,26 @@ public class AudioPlayer /*extends JPanel*/ implements Runnable, LineListener
 	// It appears that this function is only needed in the case of
 	//   playing a clip.  But it is here just to get thing running
 	//----------------------------------------------------------------
-    public void update(LineEvent event) 
+    public synchronized void update(LineEvent event) 
     {
     	System.out.println("update called.");
         if (event.getType() == LineEvent.Type.STOP && !m_bPaused) 
         { 
             audioEOM = true;
+            notifyAll();
+        }
+    }
+    
+	//----------------------------------------------------------------
+	/** Define the function required for a metaeventlistener interface */
+	// The sequencer sends an end of track message when a MIDI file finishes
+	//----------------------------------------------------------------
+    public synchronized void meta(MetaMessage message) 
+    {
+        if (message.getType() == endOfTrackType) 
+        { 
+            midiEOM = true;
+            notifyAll();
         }
     }
 
@@ -0,0 +1,30 @@
+/**
+ * FrameOutput.java
+ * Somewhere the offline renderer writes its encoded frames to, in order
+ * 
+ * Slideshow Creator
+ */
+
+package viewer;
+
+import java.io.IOException;
+
+public interface FrameOutput
+{
+	/**
+	 * getImageFormat - the ImageIO format name frames should be encoded in, like "png" or "jpg"
+	 */
+	String getImageFormat();
+	
+	/**
+	 * writeFrame - writes the next frame. Called once for every frame, in order
+	 * @param index number of the frame, starting at 0
+	 * @param encoded the frame encoded in the image format
+	 */
+	void writeFrame(int index, byte[] encoded) throws IOException;
+	
+	/**
+	 * close - finishes the output after the last frame
+	 */
+	void close() throws IOException;
+}
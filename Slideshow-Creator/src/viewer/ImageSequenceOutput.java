@@ -0,0 +1,55 @@
+/**
+ * ImageSequenceOutput.java
+ * Writes rendered frames as numbered image files in a directory
+ * 
+ * Slideshow Creator
+ */
+
+package viewer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class ImageSequenceOutput implements FrameOutput
+{
+	/** directory the frames go in */
+	private final File dir;
+	
+	/** ImageIO format name, also used as the file extension */
+	private final String format;
+	
+	/**
+	 * ImageSequenceOutput - writes frames named frame000000.png, frame000001.png, and so on
+	 * @param dir directory to write to. Created if it doesn't exist
+	 * @param format "png" or "jpg"
+	 * @throws IOException if the directory can't be made
+	 */
+	public ImageSequenceOutput(File dir, String format) throws IOException
+	{
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Could not make directory " + dir.getAbsolutePath());
+		this.dir = dir;
+		this.format = format;
+	}
+	
+	@Override
+	public String getImageFormat()
+	{
+		return format;
+	}
+	
+	@Override
+	public void writeFrame(int index, byte[] encoded) throws IOException
+	{
+		try (FileOutputStream out = new FileOutputStream(new File(dir, String.format("frame%06d.%s", index, format))))
+		{
+			out.write(encoded);
+		}
+	}
+	
+	@Override
+	public void close()
+	{
+	}
+}
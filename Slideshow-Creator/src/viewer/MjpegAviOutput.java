@@ -0,0 +1,232 @@
+/**
+ * MjpegAviOutput.java
+ * Writes rendered frames into a Motion JPEG AVI file that plays in most video players
+ * 
+ * Slideshow Creator
+ */
+
+package viewer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class MjpegAviOutput implements FrameOutput
+{
+	/** bytes before the first frame: RIFF header, hdrl list, and the start of the movi list */
+	private static final int headerBytes = 224;
+	
+	/** where the movi list's fourcc is. Index offsets count from here */
+	private static final int moviStart = 220;
+	
+	/** flag on an index entry for a frame that doesn't depend on any other. Every JPEG frame is one */
+	private static final int keyFrameFlag = 0x10;
+	
+	/** flag on the main header saying the file has an idx1 index */
+	private static final int hasIndexFlag = 0x10;
+	
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final int width;
+	private final int height;
+	private final int fps;
+	
+	/** offset of each frame from moviStart */
+	private int[] frameOffsets = new int[1024];
+	
+	/** size of each frame's JPEG */
+	private int[] frameSizes = new int[1024];
+	
+	private int frameCount = 0;
+	
+	/** biggest frame so far, for the suggested buffer size */
+	private int maxFrameBytes = 0;
+	
+	/** where the next frame goes */
+	private long position = headerBytes;
+	
+	/**
+	 * MjpegAviOutput - starts an AVI file. The header is filled in once all the frames are written. Files are limited
+	 * to 4GB by the original AVI format
+	 * @param aviFile file to write. Replaced if it exists
+	 * @param width width of every frame
+	 * @param height height of every frame
+	 * @param fps frames per second to play at
+	 * @throws IOException if the file can't be written
+	 */
+	public MjpegAviOutput(File aviFile, int width, int height, int fps) throws IOException
+	{
+		this.width = width;
+		this.height = height;
+		this.fps = fps;
+		file = new RandomAccessFile(aviFile, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+	}
+	
+	@Override
+	public String getImageFormat()
+	{
+		return "jpg";
+	}
+	
+	@Override
+	public void writeFrame(int index, byte[] encoded) throws IOException
+	{
+		int padding = encoded.length & 1;
+		if (position + 8 + encoded.length + padding + (frameCount + 1L) * 16 + 8 > 0xFFFFFFFFL)
+			throw new IOException("AVI file would be over 4GB");
+		
+		ByteBuffer chunk = ByteBuffer.allocate(8 + encoded.length + padding).order(ByteOrder.LITTLE_ENDIAN);
+		putFourCC(chunk, "00dc");
+		chunk.putInt(encoded.length);
+		chunk.put(encoded);
+		//keeps the pad byte on odd sized frames
+		chunk.rewind();
+		writeAt(chunk, position);
+		
+		if (frameCount == frameOffsets.length)
+		{
+			frameOffsets = Arrays.copyOf(frameOffsets, frameCount * 2);
+			frameSizes = Arrays.copyOf(frameSizes, frameCount * 2);
+		}
+		frameOffsets[frameCount] = (int) (position - moviStart);
+		frameSizes[frameCount] = encoded.length;
+		frameCount++;
+		maxFrameBytes = Math.max(maxFrameBytes, encoded.length);
+		position += chunk.limit();
+	}
+	
+	/**
+	 * close - writes the index after the frames, then goes back and fills in the header
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			ByteBuffer index = ByteBuffer.allocate(8 + frameCount * 16).order(ByteOrder.LITTLE_ENDIAN);
+			putFourCC(index, "idx1");
+			index.putInt(frameCount * 16);
+			for (int i = 0; i < frameCount; i++)
+			{
+				putFourCC(index, "00dc");
+				index.putInt(keyFrameFlag);
+				index.putInt(frameOffsets[i]);
+				index.putInt(frameSizes[i]);
+			}
+			index.flip();
+			writeAt(index, position);
+			long fileLength = position + index.limit();
+			
+			writeAt(createHeader(fileLength), 0);
+		} finally
+		{
+			file.close();
+		}
+	}
+	
+	/**
+	 * createHeader - makes everything before the first frame
+	 * @param fileLength length of the whole file
+	 * @return header ready to write
+	 */
+	private ByteBuffer createHeader(long fileLength)
+	{
+		int microsPerFrame = 1000000 / fps;
+		int suggestedBuffer = maxFrameBytes + 8;
+		ByteBuffer h = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+		
+		putFourCC(h, "RIFF");
+		h.putInt((int) (fileLength - 8));
+		putFourCC(h, "AVI ");
+		
+		putFourCC(h, "LIST");
+		h.putInt(192);
+		putFourCC(h, "hdrl");
+		
+		//main header
+		putFourCC(h, "avih");
+		h.putInt(56);
+		h.putInt(microsPerFrame);
+		h.putInt(suggestedBuffer * fps);//max bytes per second
+		h.putInt(0);//padding granularity
+		h.putInt(hasIndexFlag);
+		h.putInt(frameCount);
+		h.putInt(0);//initial frames
+		h.putInt(1);//streams
+		h.putInt(suggestedBuffer);
+		h.putInt(width);
+		h.putInt(height);
+		h.put(new byte[16]);//reserved
+		
+		putFourCC(h, "LIST");
+		h.putInt(116);
+		putFourCC(h, "strl");
+		
+		//stream header
+		putFourCC(h, "strh");
+		h.putInt(56);
+		putFourCC(h, "vids");
+		putFourCC(h, "MJPG");
+		h.putInt(0);//flags
+		h.putShort((short) 0);//priority
+		h.putShort((short) 0);//language
+		h.putInt(0);//initial frames
+		h.putInt(1);//scale
+		h.putInt(fps);//rate, frames per second is rate / scale
+		h.putInt(0);//start
+		h.putInt(frameCount);//length
+		h.putInt(suggestedBuffer);
+		h.putInt(-1);//quality, default
+		h.putInt(0);//sample size, varies
+		h.putShort((short) 0);
+		h.putShort((short) 0);
+		h.putShort((short) width);
+		h.putShort((short) height);
+		
+		//stream format, a BITMAPINFOHEADER
+		putFourCC(h, "strf");
+		h.putInt(40);
+		h.putInt(40);
+		h.putInt(width);
+		h.putInt(height);
+		h.putShort((short) 1);//planes
+		h.putShort((short) 24);//bits per pixel
+		putFourCC(h, "MJPG");
+		h.putInt(width * height * 3);
+		h.putInt(0);//pixels per meter
+		h.putInt(0);
+		h.putInt(0);//colors used
+		h.putInt(0);//important colors
+		
+		putFourCC(h, "LIST");
+		h.putInt((int) (position - moviStart));
+		putFourCC(h, "movi");
+		
+		h.flip();
+		return h;
+	}
+	
+	/**
+	 * writes all of the buffer at the position given
+	 */
+	private void writeAt(ByteBuffer buffer, long at) throws IOException
+	{
+		while (buffer.hasRemaining())
+			at += channel.write(buffer, at);
+	}
+	
+	/**
+	 * puts a four character code into the buffer
+	 */
+	private static void putFourCC(ByteBuffer buffer, String fourCC)
+	{
+		buffer.put(fourCC.getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,361 @@
+/**
+ * OfflineRenderer.java
+ * Renders a whole slideshow to frames without a window, drawing transition frames on every core at once
+ * 
+ * Slideshow Creator
+ */
+
+package viewer;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import core.Thumbnail;
+import core.Timeline;
+import core.Transition;
+import core.TransitionType;
+import pkgImageTransitions.ColemanTransition;
+
+public class OfflineRenderer
+{
+	/** a stretch of the slideshow: a slide held on screen, or a transition from one slide to the next */
+	private static class Segment
+	{
+		final int slide;
+		/** slide transitioning to, -1 if the slide is just held */
+		final int nextSlide;
+		final TransitionType type;
+		final int frameCount;
+		
+		Segment(int slide, int nextSlide, TransitionType type, int frameCount)
+		{
+			this.slide = slide;
+			this.nextSlide = nextSlide;
+			this.type = type;
+			this.frameCount = frameCount;
+		}
+	}
+	
+	private final Timeline timeline;
+	private final int width;
+	private final int height;
+	private final int fps;
+	private final int threads;
+	
+	/** JPEG quality from 0 to 1 */
+	private float jpegQuality = 0.9f;
+	
+	public void setJpegQuality(float quality) {
+		jpegQuality = quality;
+	}
+	
+	/** slides being prepared or prepared at the output size */
+	private final HashMap<Integer, FutureTask<BufferedImage>> slides = new HashMap<Integer, FutureTask<BufferedImage>>();
+	
+	/** a transition of each type for each thread, since transitions keep buffers between frames */
+	private final ThreadLocal<Map<TransitionType, ColemanTransition>> transitions = new ThreadLocal<Map<TransitionType, ColemanTransition>>() {
+		@Override
+		protected Map<TransitionType, ColemanTransition> initialValue() {
+			return new EnumMap<TransitionType, ColemanTransition>(TransitionType.class);
+		}
+	};
+	
+	/** frame each thread draws transitions into before encoding them */
+	private final ThreadLocal<BufferedImage> frameBuffers = new ThreadLocal<BufferedImage>() {
+		@Override
+		protected BufferedImage initialValue() {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		}
+	};
+	
+	/**
+	 * OfflineRenderer - sets up a renderer for the slideshow
+	 * @param timeline slideshow to render
+	 * @param width width of every frame
+	 * @param height height of every frame
+	 * @param fps frames per second
+	 * @param threads number of threads to draw and encode frames on
+	 */
+	public OfflineRenderer(Timeline timeline, int width, int height, int fps, int threads)
+	{
+		this.timeline = timeline;
+		this.width = width;
+		this.height = height;
+		this.fps = fps;
+		this.threads = Math.max(threads, 1);
+	}
+	
+	/**
+	 * render - renders every slide and transition of the slideshow to the output. Each slide is held for its slide
+	 * time minus the transition out of it, then transitions into the next. A looping slideshow ends with the
+	 * transition back to the first slide so the video loops cleanly
+	 * @param output where the frames go
+	 * @return number of frames written
+	 * @throws IOException if the output can't be written
+	 */
+	public int render(FrameOutput output) throws IOException
+	{
+		List<Segment> segments = createSegments();
+		int totalFrames = 0;
+		for (Segment s : segments)
+			totalFrames += s.frameCount;
+		
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Offline Renderer " + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		
+		String format = output.getImageFormat();
+		//enough frames in flight to keep every thread busy without holding the whole slideshow in memory
+		int window = threads * 4;
+		ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<Future<byte[]>>();
+		int written = 0;
+		long start = System.nanoTime();
+		long lastReport = start;
+		
+		try
+		{
+			for (Segment segment : segments)
+			{
+				if (segment.nextSlide < 0)
+				{
+					//every frame of a held slide is the same, so only encode it once
+					Future<byte[]> held = pool.submit(new Callable<byte[]>() {
+						@Override
+						public byte[] call() throws Exception {
+							return encode(getSlide(segment.slide), format);
+						}
+					});
+					for (int i = 0; i < segment.frameCount; i++)
+						inFlight.add(held);
+				}
+				else for (int i = 0; i < segment.frameCount; i++)
+				{
+					float progress = (float) i / segment.frameCount;
+					inFlight.add(pool.submit(new Callable<byte[]>() {
+						@Override
+						public byte[] call() throws Exception {
+							return encode(renderTransitionFrame(segment, progress), format);
+						}
+					}));
+				}
+				
+				//write frames in order as they finish
+				while (inFlight.size() > window)
+					output.writeFrame(written++, get(inFlight.poll()));
+				
+				//slides before this one are done being drawn
+				forgetSlidesBefore(segment.slide);
+				
+				long now = System.nanoTime();
+				if (now - lastReport > 2000000000L)
+				{
+					lastReport = now;
+					System.out.println(String.format("Rendered %d of %d frames, %.1f frames per second", written, totalFrames, written / ((now - start) / 1e9)));
+				}
+			}
+			
+			while (!inFlight.isEmpty())
+				output.writeFrame(written++, get(inFlight.poll()));
+		} finally
+		{
+			pool.shutdownNow();
+			output.close();
+		}
+		
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("Rendered %d frames (%.1f seconds of video) in %.1f seconds: %.1f frames per second on %d threads",
+				written, (double) written / fps, seconds, written / seconds, threads));
+		return written;
+	}
+	
+	/**
+	 * createSegments - works out how many frames each slide and transition gets, with the same times PlayScene uses
+	 * @return segments in order
+	 */
+	private List<Segment> createSegments()
+	{
+		List<Segment> segments = new ArrayList<Segment>();
+		int slideCount = timeline.thumbnailsList.getSize();
+		boolean looping = timeline.timelineSettings.isLoopingSlides && slideCount > 1;
+		for (int i = 0; i < slideCount; i++)
+		{
+			boolean hasNext = i < slideCount - 1 || looping;
+			boolean hasTransition = hasNext && i < timeline.transitionsList.getSize();
+			SlideShowTime times = hasTransition ? new SlideShowTime(timeline, i) : null;
+			
+			int slideMillis = timeline.timelineSettings.slideDuration * 1000;
+			int transitionMillis = hasTransition ? Math.min(times.transitionDuration, slideMillis) : 0;
+			segments.add(new Segment(i, -1, null, toFrames(slideMillis - transitionMillis)));
+			if (transitionMillis > 0)
+			{
+				TransitionType type = timeline.transitionsList.getTransition(i).getTransitionType();
+				segments.add(new Segment(i, (i + 1) % slideCount, type, toFrames(transitionMillis)));
+			}
+		}
+		return segments;
+	}
+	
+	/**
+	 * toFrames - number of frames in a length of time
+	 */
+	private int toFrames(int millis)
+	{
+		return (int) Math.round(Math.max(millis, 0) * fps / 1000.0);
+	}
+	
+	/**
+	 * renderTransitionFrame - draws one frame of a transition into this thread's frame
+	 * @param segment the transition
+	 * @param progress how far along it is from 0 to 1
+	 * @return this thread's frame with the transition drawn in it
+	 */
+	private BufferedImage renderTransitionFrame(Segment segment, float progress) throws Exception
+	{
+		BufferedImage slideA = getSlide(segment.slide);
+		BufferedImage slideB = getSlide(segment.nextSlide);
+		BufferedImage frame = frameBuffers.get();
+		
+		Map<TransitionType, ColemanTransition> threadTransitions = transitions.get();
+		ColemanTransition transition = threadTransitions.get(segment.type);
+		if (transition == null)
+		{
+			transition = Transition.createColemanTransition(segment.type);
+			threadTransitions.put(segment.type, transition);
+		}
+		
+		Graphics2D g = frame.createGraphics();
+		try
+		{
+			transition.renderFrame(progress, g, slideA, slideB, width, height);
+		} finally
+		{
+			g.dispose();
+		}
+		return frame;
+	}
+	
+	/**
+	 * getSlide - gets a slide letterboxed to the output size, preparing it if no other thread has yet
+	 * @param index index of the slide
+	 * @return the prepared slide
+	 */
+	private BufferedImage getSlide(int index) throws Exception
+	{
+		FutureTask<BufferedImage> task;
+		boolean mine = false;
+		synchronized (slides)
+		{
+			task = slides.get(index);
+			if (task == null)
+			{
+				Thumbnail slide = timeline.thumbnailsList.getThumbnail(index);
+				task = new FutureTask<BufferedImage>(new Callable<BufferedImage>() {
+					@Override
+					public BufferedImage call() throws Exception {
+						BufferedImage prepared = SlidePrefetcher.prepare(slide, width, height);
+						if (prepared == null)
+							throw new IOException("Could not load slide " + slide.getImagePath());
+						return prepared;
+					}
+				});
+				slides.put(index, task);
+				mine = true;
+			}
+		}
+		
+		//prepare it outside the lock so other slides can be prepared at the same time
+		if (mine)
+			task.run();
+		return task.get();
+	}
+	
+	/**
+	 * forgets the prepared slides before this one since nothing draws them anymore
+	 * @param index first slide still needed
+	 */
+	private void forgetSlidesBefore(int index)
+	{
+		synchronized (slides)
+		{
+			Iterator<Integer> it = slides.keySet().iterator();
+			while (it.hasNext())
+				if (it.next() < index - 1)
+					it.remove();
+		}
+	}
+	
+	/**
+	 * encode - encodes a frame as an image file
+	 * @param frame frame to encode
+	 * @param format ImageIO format name
+	 * @return bytes of the image file
+	 */
+	private byte[] encode(BufferedImage frame, String format) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(width * height / 4);
+		ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes))
+		{
+			writer.setOutput(out);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (param.canWriteCompressed() && (format.equalsIgnoreCase("jpg") || format.equalsIgnoreCase("jpeg")))
+			{
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(jpegQuality);
+			}
+			writer.write(null, new IIOImage(frame, null, null), param);
+		} finally
+		{
+			writer.dispose();
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * waits for a frame to finish encoding
+	 */
+	private static byte[] get(Future<byte[]> frame) throws IOException
+	{
+		try
+		{
+			return frame.get();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while rendering", e);
+		} catch (ExecutionException e)
+		{
+			throw new IOException("Could not render frame", e.getCause());
+		}
+	}
+}
@@ -16,14 +16,17 @@ import java.awt.Cursor;
 import java.awt.Graphics;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -93,10 +96,16 @@ public class PlayScene extends Scene {
 	private Timeline timeline;
 	
 	/** slide advancement and transition timer */
-	private Timer slideTimer;
+	private ScheduledFuture<?> slideTimer;
 	
-	/** time to wait between checking if the transition is finished if waiting for it to finish */
-	private static final int checkTransitionFinishedInterval = 100;
+	/** bumped whenever the slideshow starts or stops so a transition finishing from before then doesn't advance it */
+	private int playbackGeneration = 0;
+	
+	/** prepares the slides on either side of the current one while it shows */
+	private SlidePrefetcher prefetcher;
+	
+	/** frames of transitions already played, replayed instead of drawn again when the slideshow loops. Null if off */
+	private TransitionFrameCache frameCache;
 	
 	/**
 	 * list of times for each slide
@@ -117,6 +126,13 @@ public class PlayScene extends Scene {
 		playIconHigh = new ImageIcon(getClass().getResource("Images/highlightedPlayButton.png"));
 		pauseIcon = new ImageIcon(getClass().getResource("Images/pauseButton.png"));
 		pauseIconHigh = new ImageIcon(getClass().getResource("Images/highlightedPauseButton.png"));
+		prefetcher = new SlidePrefetcher();
+		//off by default, since a single full screen transition can take hundreds of megabytes
+		if (Boolean.getBoolean("slider.transitionCache"))
+			frameCache = new TransitionFrameCache(
+					Long.getLong("slider.transitionCacheBytes", Math.min(Runtime.getRuntime().maxMemory() / 4, 512L * 1024 * 1024)),
+					Boolean.getBoolean("slider.transitionCacheSpill") ? new File(System.getProperty("user.home"), ".slider" + File.separator + "transitions") : null,
+					Long.getLong("slider.transitionCacheSpillBytes", 4L * 1024 * 1024 * 1024));
 	}
 	
 	/**
@@ -148,6 +164,13 @@ public class PlayScene extends Scene {
 		slidePanel.setBorder(BorderFactory.createEmptyBorder());
 		slidePanel.setBackground(SliderColor.dark_gray);
 		slidePanel.add(createSlideLabel(), BorderLayout.CENTER);
+		//slides prepared for the old size are no good anymore
+		slidePanel.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				prefetchNeighbors();
+			}
+		});
 		
 		// Set constraints and add slide panel
 		c.fill = GridBagConstraints.BOTH;
@@ -322,7 +345,11 @@ public class PlayScene extends Scene {
 			JLabel label = new JLabel() {
 				@Override
 				public void paintComponent(Graphics g) {
-					slideThumb.drawFill(g, this);
+					//draw the prepared slide if it's ready so it doesn't scale on every paint
+					BufferedImage prepared = prefetcher.getIfReady(slideThumb, getWidth(), getHeight());
+					if (prepared != null)
+						g.drawImage(prepared, 0, 0, null);
+					else slideThumb.drawFill(g, this);
 				}
 			};
 			label.setBorder(BorderFactory.createEmptyBorder());
@@ -519,6 +546,24 @@ public class PlayScene extends Scene {
 		//repaint the bar to make sure it doesn't get overwritten by resized window during transition
 		repaint();
 		optionsPanel.repaint();
+		
+		prefetchNeighbors();
+	}
+	
+	/**
+	 * prepares the current slide and the slides on either side of it at the size of the slide panel so the next
+	 * transition either way can start without loading or scaling anything
+	 */
+	private void prefetchNeighbors()
+	{
+		if (slidePanel == null || timeline == null)
+			return;
+		
+		List<Thumbnail> neighbors = new ArrayList<Thumbnail>();
+		neighbors.add(getSlide(currentSlideIndex));
+		neighbors.add(getSlide(getNextSlideIndex(SlideDir.RIGHT)));
+		neighbors.add(getSlide(getNextSlideIndex(SlideDir.LEFT)));
+		prefetcher.prefetch(neighbors, slidePanel.getWidth(), slidePanel.getHeight());
 	}
 	
 	/**
@@ -527,7 +572,7 @@ public class PlayScene extends Scene {
 	 * 
 	 * @author Timothy Couch
 	 */
-	private synchronized void startTransition(SlideDir dir) {
+	private synchronized CompletableFuture<Void> startTransition(SlideDir dir) {
 		//if transitioning right, use current transition. If left, use previous transition
 		if (dir == SlideDir.LEFT)
 			currentTransitionIndex = getNextSlideIndex(dir);
@@ -537,7 +582,34 @@ public class PlayScene extends Scene {
 		
 		setManualButtonIcons();
 		
-		transition.PlayTransition(slidePanel, Thumbnail.cloneImage(slideThumb.getImageRaw()), Thumbnail.cloneImage(getSlide(getNextSlideIndex(dir)).getImageRaw()));
+		//both slides were prepared at the panel size while the current slide showed
+		int width = slidePanel.getWidth();
+		int height = slidePanel.getHeight();
+		Thumbnail nextThumb = getSlide(getNextSlideIndex(dir));
+		BufferedImage prevImg = prefetcher.get(slideThumb, width, height);
+		BufferedImage nextImg = prefetcher.get(nextThumb, width, height);
+		
+		//looping slideshows play the same transitions over and over, so replay their frames instead of drawing them again
+		if (frameCache != null && timeline.timelineSettings.isLoopingSlides && slideThumb != null && nextThumb != null)
+		{
+			frameCache.setLoopBytes(getLoopBytes(width, height));
+			return transition.PlayTransition(slidePanel, prevImg, nextImg, frameCache,
+					new TransitionFrameCache.Key(slideThumb, nextThumb, transition.getTransitionType(), transition.getTransitionLength(), width, height));
+		}
+		return transition.PlayTransition(slidePanel, prevImg, nextImg);
+	}
+	
+	/**
+	 * gets how many bytes the frames of every transition in the slideshow would take at the size given
+	 * @param width width of the slide panel
+	 * @param height height of the slide panel
+	 * @return bytes to cache the whole loop
+	 */
+	private long getLoopBytes(int width, int height) {
+		long bytes = 0;
+		for (Transition t : timeline.transitionsList.getTransitions())
+			bytes += TransitionFrameCache.getTransitionBytes(t.getTransitionType(), t.getTransitionLength(), width, height);
+		return bytes;
 	}
 	
 	/**
@@ -552,9 +624,8 @@ public class PlayScene extends Scene {
 		//System.out.println("Scheduling start of transition with timer " + timerLength);
 		
 		cancelTimer();
-		slideTimer = new Timer();
-		slideTimer.schedule(
-				new TimerTask() {
+		slideTimer = PlaybackScheduler.singleton.schedule(
+				new Runnable() {
 
 					//start transition to next slide
 					@Override
@@ -564,9 +635,9 @@ public class PlayScene extends Scene {
 						//if there's another slide in that direction, go
 						if (getNextSlideIndex(dir) != currentSlideIndex)
 						{
-							startTransition(dir);
+							long transitionStart = System.currentTimeMillis();
 							
-							scheduleStartSlide(dir);
+							scheduleStartSlide(dir, startTransition(dir), transitionStart);
 						}
 						else
 						{
@@ -583,46 +654,64 @@ public class PlayScene extends Scene {
 	}
 	
 	/**
-	 * starts the timer to finish the current transition and start a new slide timer
-	 * The timer waits and loops until the transition is finished
+	 * finishes the transition and starts a new slide timer the moment the transition is done. Still waits out the
+	 * whole transition time if the transition finished early, like when it cuts straight to the next slide
 	 * @param dir left or right to move the slide
+	 * @param transitionDone completes when the transition finishes
+	 * @param transitionStart System.currentTimeMillis when the transition started
 	 * 
 	 * @author Timothy Couch
 	 */
-	private synchronized void scheduleStartSlide(SlideDir dir) {
-		cancelTimer();
-		slideTimer = new Timer();
-		slideTimer.schedule(
-				new TimerTask() {
-
-					//finalize transition and start a new slide timer
-					@Override
-					public void run() 
-					{
-						//System.out.println("Finishing transition to " + (dir == SlideDir.RIGHT ? "next" : "previous") + " slide! Index: " + currentSlideIndex);
-						
-						//if the transition playing has finished
-						if (!getTransition(currentTransitionIndex).isRunning())
-						{
-							slideTimer.cancel();
-							//if the slideshow will advance (otherwise, it doesn't loop and is at the end)
-							if (getNextSlideIndex(dir) != currentSlideIndex)
-							{
-								//System.out.println("Advancing Slide from " + currentSlideIndex);
-								advanceSlide(dir);
-								
-								//start the next slide if auto and not paused
-								if (!timeline.timelineSettings.isManual && !isPaused)
-									scheduleStartTransition(dir);
-							}
-							else System.out.println("StartSlide: No more slides available in that direction!");
+	private synchronized void scheduleStartSlide(SlideDir dir, CompletableFuture<Void> transitionDone, long transitionStart) {
+		final int generation = playbackGeneration;
+		final int transitionIndex = currentTransitionIndex;
+		
+		transitionDone.thenRun(new Runnable() {
+			
+			//finalize transition and start a new slide timer
+			@Override
+			public void run() {
+				synchronized (PlayScene.this)
+				{
+					//the slideshow stopped or restarted while the transition was playing
+					if (generation != playbackGeneration)
+						return;
+					
+					long remaining = transitionStart + slideTimes[transitionIndex].transitionDuration - System.currentTimeMillis();
+					cancelTimer();
+					slideTimer = PlaybackScheduler.singleton.schedule(new Runnable() {
+						@Override
+						public void run() {
+							startSlide(dir, generation);
 						}
-						//else System.out.println("Transition not finished! Running timer again");
-					}
-				},
-				slideTimes[currentTransitionIndex].transitionDuration,
-				checkTransitionFinishedInterval
-				);
+					}, remaining);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * advances to the next slide after a transition and starts its timer if the slideshow is playing
+	 * @param dir left or right to move the slide
+	 * @param generation playback generation the transition started in
+	 */
+	private synchronized void startSlide(SlideDir dir, int generation) {
+		if (generation != playbackGeneration)
+			return;
+		
+		//System.out.println("Finishing transition to " + (dir == SlideDir.RIGHT ? "next" : "previous") + " slide! Index: " + currentSlideIndex);
+		
+		//if the slideshow will advance (otherwise, it doesn't loop and is at the end)
+		if (getNextSlideIndex(dir) != currentSlideIndex)
+		{
+			//System.out.println("Advancing Slide from " + currentSlideIndex);
+			advanceSlide(dir);
+			
+			//start the next slide if auto and not paused
+			if (!timeline.timelineSettings.isManual && !isPaused)
+				scheduleStartTransition(dir);
+		}
+		else System.out.println("StartSlide: No more slides available in that direction!");
 	}
 	
 	/**
@@ -640,6 +729,7 @@ public class PlayScene extends Scene {
 		}
 		
 		//start at the proper values
+		playbackGeneration++;
 		currentSlideIndex = 0;
 		currentTransitionIndex = -1;
 		showCurrentSlide();
@@ -659,6 +749,7 @@ public class PlayScene extends Scene {
 	 */
 	private synchronized void stopSlideshow()
 	{
+		playbackGeneration++;
 		cancelTimer();
 		
 		//Stop audio
@@ -670,6 +761,10 @@ public class PlayScene extends Scene {
 			getTransition(currentTransitionIndex).stopTransition();
 			currentTransitionIndex = -1;
 		}
+		
+		prefetcher.clear();
+		if (frameCache != null)
+			frameCache.clear();
 	}
 	
 	/**
@@ -681,7 +776,7 @@ public class PlayScene extends Scene {
 	private synchronized boolean cancelTimer() {
 		if (slideTimer != null)
 		{
-			slideTimer.cancel();
+			slideTimer.cancel(false);
 			slideTimer = null;
 			return true;
 		}
@@ -710,21 +805,7 @@ public class PlayScene extends Scene {
 	 * @author Timothy Couch
      */
     public static ImageIcon ImageGray(ImageIcon imIcon) {
-    	Image img = imIcon.getImage();
-        BufferedImage imgBuff = new BufferedImage(img.getWidth(null), img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
-        imgBuff.getGraphics().drawImage(img, 0, 0, null);
-
-        for (int i = 0; i < imgBuff.getWidth(); i++) {
-            for (int j = 0; j < imgBuff.getHeight(); j++) {                    
-                Color pixColor = new Color(imgBuff.getRGB(i, j), true);
-                
-                if (pixColor.getAlpha() > 0) {
-                	pixColor = new Color(grayColor.getRed(), grayColor.getGreen(), grayColor.getBlue(), pixColor.getAlpha());
-                	imgBuff.setRGB(i, j, pixColor.getRGB());
-                }
-            }
-        } 
-        return new ImageIcon(imgBuff);
+        return new ImageIcon(ImageEffects.recolor(imIcon.getImage(), grayColor));
     }
 	
 	/**
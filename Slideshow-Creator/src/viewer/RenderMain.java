@@ -0,0 +1,109 @@
+/**
+ * RenderMain.java
+ * Renders a slideshow file to an image sequence or a Motion JPEG AVI from the command line, with no window
+ * 
+ * Slideshow Creator
+ */
+
+package viewer;
+
+import java.io.File;
+
+import javax.imageio.ImageIO;
+
+import core.AppType;
+import core.SceneHandler;
+import core.Timeline;
+import core.TimelineParser;
+
+public class RenderMain
+{
+	private static final String usage = "Usage: RenderMain <slideshow.sl> <output.avi | output directory> [options]\n"
+			+ "  --width <pixels>      width of the video, default 1920\n"
+			+ "  --height <pixels>     height of the video, default 1080\n"
+			+ "  --fps <frames>        frames per second, default 30\n"
+			+ "  --format <png|jpg>    image format when writing a directory of frames, default png\n"
+			+ "  --quality <0-1>       JPEG quality, default 0.9\n"
+			+ "  --threads <count>     threads to render on, default one per core";
+	
+	/**
+	 * main - renders the slideshow given to the output given
+	 * @param args slideshow file, output, then options
+	 */
+	public static void main(String[] args)
+	{
+		//must be set before anything touches AWT
+		System.setProperty("java.awt.headless", "true");
+		
+		if (args.length < 2)
+		{
+			System.out.println(usage);
+			System.exit(1);
+		}
+		
+		int width = 1920;
+		int height = 1080;
+		int fps = 30;
+		String format = "png";
+		float quality = 0.9f;
+		int threads = Runtime.getRuntime().availableProcessors();
+		try
+		{
+			for (int i = 2; i < args.length; i += 2)
+			{
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+				String value = args[i + 1];
+				switch (args[i])
+				{
+				case "--width": width = Integer.parseInt(value); break;
+				case "--height": height = Integer.parseInt(value); break;
+				case "--fps": fps = Integer.parseInt(value); break;
+				case "--format": format = value.toLowerCase(); break;
+				case "--quality": quality = Float.parseFloat(value); break;
+				case "--threads": threads = Integer.parseInt(value); break;
+				default: throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if (width <= 0 || height <= 0 || fps <= 0)
+				throw new IllegalArgumentException("Width, height, and fps must be positive");
+			if (!format.equals("png") && !format.equals("jpg"))
+				throw new IllegalArgumentException("Format must be png or jpg");
+		} catch (IllegalArgumentException e)
+		{
+			System.out.println(e.getMessage() + "\n" + usage);
+			System.exit(1);
+		}
+		
+		//frames are encoded in memory, don't go through temporary files
+		ImageIO.setUseCache(false);
+		
+		try
+		{
+			//the timeline needs a scene handler even with no window
+			new SceneHandler(AppType.RENDERER);
+			Timeline timeline = TimelineParser.ImportTimeline(new File(args[0]).getAbsolutePath());
+			if (timeline == null)
+			{
+				System.out.println("Could not load slideshow " + args[0]);
+				System.exit(1);
+			}
+			
+			File outFile = new File(args[1]);
+			FrameOutput output;
+			if (outFile.getName().toLowerCase().endsWith(".avi"))
+				output = new MjpegAviOutput(outFile, width, height, fps);
+			else output = new ImageSequenceOutput(outFile, format);
+			
+			OfflineRenderer renderer = new OfflineRenderer(timeline, width, height, fps, threads);
+			renderer.setJpegQuality(quality);
+			renderer.render(output);
+			System.out.println("Wrote " + outFile.getAbsolutePath());
+		} catch (Exception e)
+		{
+			System.out.println("Could not render slideshow: " + e);
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * SlidePrefetcher.java
+ * Prepares slides letterboxed to the size of the player ahead of time so transitions can start right away
+ * 
+ * Slideshow Creator
+ */
+
+package viewer;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import core.ImageScaler;
+import core.SliderColor;
+import core.Thumbnail;
+
+public class SlidePrefetcher
+{
+	/** a slide being prepared or already prepared at one size */
+	private static class Prepared
+	{
+		final int width;
+		final int height;
+		final Future<BufferedImage> image;
+		
+		Prepared(int width, int height, Future<BufferedImage> image)
+		{
+			this.width = width;
+			this.height = height;
+			this.image = image;
+		}
+	}
+	
+	/** thread that prepares the slides. Only one so it doesn't compete with the transition for the processor */
+	private final ExecutorService worker;
+	
+	/** slides prepared or being prepared */
+	private final HashMap<Thumbnail, Prepared> prepared;
+	
+	/**
+	 * SlidePrefetcher - creates a prefetcher with its own worker thread
+	 */
+	public SlidePrefetcher()
+	{
+		prepared = new HashMap<Thumbnail, Prepared>();
+		worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Slide Prefetcher");
+				//don't keep the program open just for prefetching
+				t.setDaemon(true);
+				//keep the current transition smooth while preparing the next one
+				t.setPriority(Thread.NORM_PRIORITY - 1);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * prefetch - prepares the slides at the size given and forgets every other slide. Slides already prepared at that
+	 * size are kept
+	 * @param slides slides that could be shown next, including the current one. Nulls are skipped
+	 * @param width width of the player
+	 * @param height height of the player
+	 */
+	public synchronized void prefetch(List<Thumbnail> slides, int width, int height)
+	{
+		//forget slides that aren't coming up anymore or were made at the wrong size
+		Iterator<Map.Entry<Thumbnail, Prepared>> it = prepared.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Thumbnail, Prepared> entry = it.next();
+			Prepared p = entry.getValue();
+			if (!slides.contains(entry.getKey()) || p.width != width || p.height != height)
+			{
+				p.image.cancel(false);
+				it.remove();
+			}
+		}
+		
+		if (width <= 0 || height <= 0)
+			return;
+		
+		for (Thumbnail slide : slides)
+			if (slide != null && !prepared.containsKey(slide))
+				prepared.put(slide, new Prepared(width, height, worker.submit(new Callable<BufferedImage>() {
+					@Override
+					public BufferedImage call() {
+						return prepare(slide, width, height);
+					}
+				})));
+	}
+	
+	/**
+	 * get - gets the slide letterboxed to the size given. Waits for it if it's still being prepared and prepares it
+	 * right here if it wasn't prefetched
+	 * @param slide slide to get
+	 * @param width width of the player
+	 * @param height height of the player
+	 * @return image of exactly width by height, or null if the slide couldn't be loaded
+	 */
+	public BufferedImage get(Thumbnail slide, int width, int height)
+	{
+		Future<BufferedImage> image = null;
+		synchronized (this)
+		{
+			Prepared p = prepared.get(slide);
+			if (p != null && p.width == width && p.height == height && !p.image.isCancelled())
+				image = p.image;
+		}
+		
+		if (image != null)
+		{
+			try
+			{
+				return image.get();
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e)
+			{
+				System.out.println("Slide not prefetched! " + slide.getImagePath() + "\n" + e.getCause());
+			}
+		}
+		
+		System.out.println("Slide wasn't ready, preparing it now: " + slide.getImagePath());
+		return prepare(slide, width, height);
+	}
+	
+	/**
+	 * getIfReady - gets the slide only if it has already finished being prepared at the size given
+	 * @param slide slide to get
+	 * @param width width of the player
+	 * @param height height of the player
+	 * @return image of exactly width by height, or null if it isn't ready
+	 */
+	public synchronized BufferedImage getIfReady(Thumbnail slide, int width, int height)
+	{
+		Prepared p = prepared.get(slide);
+		if (p == null || p.width != width || p.height != height || !p.image.isDone() || p.image.isCancelled())
+			return null;
+		
+		try
+		{
+			return p.image.get();
+		} catch (InterruptedException | ExecutionException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * forgets every prepared slide and stops any that haven't started
+	 */
+	public synchronized void clear()
+	{
+		for (Prepared p : prepared.values())
+			p.image.cancel(false);
+		prepared.clear();
+	}
+	
+	/**
+	 * prepare - loads the slide and letterboxes it onto the background color at exactly the size given
+	 * @param slide slide to prepare
+	 * @param width width of result
+	 * @param height height of result
+	 * @return prepared image, or null if the slide couldn't be loaded
+	 */
+	static BufferedImage prepare(Thumbnail slide, int width, int height)
+	{
+		Image raw = slide.getImageRaw();
+		if (raw == null || raw.getWidth(null) <= 0 || raw.getHeight(null) <= 0)
+			return null;
+		
+		int[] drawCoords = Thumbnail.getLetterBoxCoords(raw.getWidth(null), raw.getHeight(null), width, height);
+		BufferedImage scaled = ImageScaler.scale(raw, drawCoords[2], drawCoords[3]);
+		
+		BufferedImage canvas = ImageScaler.createCompatibleImage(width, height, false);
+		Graphics2D g = canvas.createGraphics();
+		g.setColor(SliderColor.dark_gray);
+		g.fillRect(0, 0, width, height);
+		g.drawImage(scaled, drawCoords[0], drawCoords[1], null);
+		g.dispose();
+		return canvas;
+	}
+}